@@ -4,8 +4,29 @@ import com.maxorator.vcmp.java.plugin.integration.player.Player;
 
 public abstract class BaseCommand {
 
+    /**
+     * @deprecated shared between invocations and only set for synchronous commands, use {@link #getPlayer()}. Async
+     *             commands never set it, so while one runs it holds the player of the last synchronous command of
+     *             this instance, or null if there was none.
+     */
+    @Deprecated
     public Player player;
 
+    /**
+     * @return player who issued the invocation running on the current thread
+     */
+    protected Player getPlayer() {
+        CommandContext context = CommandContext.current();
+        return context != null ? context.player : null;
+    }
+
+    /**
+     * @return the invocation running on the current thread
+     */
+    protected CommandContext getContext() {
+        return CommandContext.current();
+    }
+
     public boolean checkAccess() {
         return true;
     }
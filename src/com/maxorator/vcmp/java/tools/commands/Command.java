@@ -6,9 +6,40 @@ import java.lang.annotation.RetentionPolicy;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Command {
 
+    /**
+     * Name the command is typed as, defaults to the lower-cased method name. Separate tokens with spaces to declare a
+     * subcommand, such as {@code "admin ban"}.
+     */
     String name() default "";
 
+    /**
+     * Additional names the command may be typed as, in the same format as {@link #name()}.
+     */
+    String[] aliases() default {};
+
     String usage() default "";
 
     Class validator() default CommandValidator.class;
+
+    /**
+     * Runs the command body on a worker thread once its arguments have been parsed on the server thread. The body
+     * must not touch game state directly, but hand such work to {@link CommandRegistry#runOnServerThread(Runnable)}.
+     * Requires the registry to be created with a {@link com.maxorator.vcmp.java.tools.timers.TimerRegistry}.
+     */
+    boolean async() default false;
+
+    /**
+     * Milliseconds a player has to wait between two uses of this command.
+     */
+    long cooldown() default 0;
+
+    /**
+     * Number of uses per {@link #ratePeriod()} a player may burst before being limited, 0 for no limit.
+     */
+    int rateLimit() default 0;
+
+    /**
+     * Milliseconds over which {@link #rateLimit()} uses are regained.
+     */
+    long ratePeriod() default 1000;
 }
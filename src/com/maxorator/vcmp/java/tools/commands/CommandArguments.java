@@ -0,0 +1,55 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+import java.util.Arrays;
+
+/**
+ * Parsed arguments of one command invocation. Primitive parameters are kept unboxed in a long slot, everything else
+ * in an object slot, both indexed by parameter position.
+ */
+public class CommandArguments {
+
+    private final long[] primitives;
+    private final Object[] objects;
+
+    public CommandArguments(int size) {
+        this.primitives = new long[size];
+        this.objects = new Object[size];
+    }
+
+    public int getInt(int index) {
+        return (int) primitives[index];
+    }
+
+    public float getFloat(int index) {
+        return Float.intBitsToFloat((int) primitives[index]);
+    }
+
+    public boolean getBoolean(int index) {
+        return primitives[index] != 0;
+    }
+
+    public Object getObject(int index) {
+        return objects[index];
+    }
+
+    public void setInt(int index, int value) {
+        primitives[index] = value;
+    }
+
+    public void setFloat(int index, float value) {
+        primitives[index] = Float.floatToRawIntBits(value);
+    }
+
+    public void setBoolean(int index, boolean value) {
+        primitives[index] = value ? 1 : 0;
+    }
+
+    public void setObject(int index, Object value) {
+        objects[index] = value;
+    }
+
+    public void clear() {
+        Arrays.fill(primitives, 0);
+        Arrays.fill(objects, null);
+    }
+}
@@ -0,0 +1,53 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+import com.maxorator.vcmp.java.plugin.integration.player.Player;
+
+/**
+ * State of one command invocation. The context is bound to the thread running the command from the access check
+ * until the command returns, so the same command may run concurrently or reentrantly for different players.
+ */
+public class CommandContext {
+
+    private static final ThreadLocal<CommandContext> CURRENT = new ThreadLocal<>();
+
+    public final CommandRegistry registry;
+    public final CommandInfo command;
+    public final Player player;
+
+    CommandContext(CommandRegistry registry, CommandInfo command, Player player) {
+        this.registry = registry;
+        this.command = command;
+        this.player = player;
+    }
+
+    /**
+     * @return context of the command running on this thread, or null
+     */
+    public static CommandContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return context that was bound to this thread before, to be restored with {@link #exit(CommandContext)}
+     */
+    static CommandContext enter(CommandContext context) {
+        CommandContext previous = CURRENT.get();
+        CURRENT.set(context);
+        return previous;
+    }
+
+    static void exit(CommandContext previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * @see CommandRegistry#runOnServerThread(Runnable)
+     */
+    public void runOnServerThread(Runnable runnable) {
+        registry.runOnServerThread(runnable);
+    }
+}
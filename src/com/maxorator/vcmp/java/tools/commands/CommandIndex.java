@@ -0,0 +1,228 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+import java.util.Arrays;
+
+/**
+ * Command lookup that walks the characters of the typed message in place. Each whitespace separated token of a
+ * command path is resolved through a character trie keyed by case-folded characters. A token that ends a path may
+ * carry a trie for the next token, which is how subcommands such as {@code admin ban} are stored.
+ */
+public class CommandIndex {
+
+    private final Node root = new Node();
+    private boolean prefixMatching;
+
+    public boolean isPrefixMatching() {
+        return prefixMatching;
+    }
+
+    /**
+     * @param prefixMatching whether a token that is the prefix of exactly one registered token resolves to it
+     */
+    public void setPrefixMatching(boolean prefixMatching) {
+        this.prefixMatching = prefixMatching;
+    }
+
+    /**
+     * @param path command name or alias, subcommand tokens separated by whitespace
+     * @param command command the path resolves to
+     * @return path registered earlier that only differs from this one by case, or null
+     */
+    public String add(String path, CommandInfo command) {
+        String[] tokens = path.trim().split("\\s+");
+        Node level = root;
+        Terminal terminal = null;
+        String conflict = null;
+        String prefix = "";
+
+        for (int t = 0; t < tokens.length; t++) {
+            String token = tokens[t];
+
+            if (t > 0) {
+                if (terminal.subcommands == null) {
+                    terminal.subcommands = new Node();
+                }
+
+                level = terminal.subcommands;
+            }
+
+            Node node = level;
+
+            for (int i = 0; i < token.length(); i++) {
+                node = node.getOrAddChild(fold(token.charAt(i)));
+            }
+
+            terminal = node.getTerminal(token, 0, token.length(), false);
+
+            if (terminal == null) {
+                if (node.terminals.length > 0 && conflict == null) {
+                    conflict = prefix + node.terminals[0].token;
+                }
+
+                terminal = node.addTerminal(token);
+
+                for (Node parent = node; parent != null; parent = parent.parent) {
+                    parent.subtreeTerminals++;
+                }
+            }
+
+            prefix += token + " ";
+        }
+
+        terminal.route = new Route(command, tokens.length);
+        return conflict;
+    }
+
+    /**
+     * @param text typed message
+     * @param start index of the first character of the command name
+     * @param ignoreCase whether the case of the typed name may differ from the registered name
+     * @return route of the longest command path matching the message, or null
+     */
+    public Route find(String text, int start, boolean ignoreCase) {
+        return resolve(root, text, start, ignoreCase);
+    }
+
+    private Route resolve(Node level, String text, int start, boolean ignoreCase) {
+        int end = CommandTokenizer.findTokenEnd(text, start);
+
+        if (start == end) {
+            return null;
+        }
+
+        Terminal terminal = findTerminal(level, text, start, end, ignoreCase);
+
+        if (terminal == null) {
+            return null;
+        }
+
+        if (terminal.subcommands != null && terminal.subcommands.subtreeTerminals > 0) {
+            Route route = resolve(terminal.subcommands, text, CommandTokenizer.skipWhitespace(text, end), ignoreCase);
+
+            if (route != null) {
+                return route;
+            }
+        }
+
+        return terminal.route;
+    }
+
+    private Terminal findTerminal(Node level, String text, int start, int end, boolean ignoreCase) {
+        Node node = level;
+
+        for (int i = start; i < end && node != null; i++) {
+            node = node.getChild(fold(text.charAt(i)));
+        }
+
+        if (node == null) {
+            return null;
+        }
+
+        Terminal terminal = node.getTerminal(text, start, end, ignoreCase);
+
+        if (terminal == null && prefixMatching && node.subtreeTerminals == 1) {
+            while (node.terminals.length == 0) {
+                node = node.getOnlyChild();
+            }
+
+            terminal = node.terminals[0];
+
+            if (!terminal.token.regionMatches(ignoreCase, 0, text, start, end - start)) {
+                return null;
+            }
+        }
+
+        return terminal;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    public static class Route {
+        public final CommandInfo command;
+        public final int tokens;
+
+        private Route(CommandInfo command, int tokens) {
+            this.command = command;
+            this.tokens = tokens;
+        }
+    }
+
+    private static class Terminal {
+        private final String token;
+        private Route route;
+        private Node subcommands;
+
+        private Terminal(String token) {
+            this.token = token;
+        }
+    }
+
+    private static class Node {
+        private final Node parent;
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private Terminal[] terminals = new Terminal[0];
+        private int subtreeTerminals;
+
+        private Node() {
+            this(null);
+        }
+
+        private Node(Node parent) {
+            this.parent = parent;
+        }
+
+        private Node getChild(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+
+            return null;
+        }
+
+        private Node getOrAddChild(char key) {
+            Node child = getChild(key);
+
+            if (child == null) {
+                child = new Node(this);
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = key;
+                children[children.length - 1] = child;
+            }
+
+            return child;
+        }
+
+        private Node getOnlyChild() {
+            for (Node child : children) {
+                if (child.subtreeTerminals > 0) {
+                    return child;
+                }
+            }
+
+            return null;
+        }
+
+        private Terminal getTerminal(String text, int start, int end, boolean ignoreCase) {
+            for (Terminal terminal : terminals) {
+                if (terminal.token.length() == end - start && terminal.token.regionMatches(false, 0, text, start, end - start)) {
+                    return terminal;
+                }
+            }
+
+            return ignoreCase && terminals.length > 0 ? terminals[0] : null;
+        }
+
+        private Terminal addTerminal(String token) {
+            Terminal terminal = new Terminal(token);
+            terminals = Arrays.copyOf(terminals, terminals.length + 1);
+            terminals[terminals.length - 1] = terminal;
+            return terminal;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.maxorator.vcmp.java.tools.commands;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class CommandInfo {
 
@@ -8,11 +9,19 @@ public class CommandInfo {
     public final Method method;
     public final Method preMethod;
     public final Method postMethod;
+    public final CommandInvoker invoker;
+    public final CommandInvoker preInvoker;
+    public final CommandInvoker postInvoker;
     public final String name;
     public final String usage;
     public final CommandParameterInfo[] parameters;
     public BaseCommand baseCommand;
     public CommandValidator validator;
+    public boolean async;
+    public final CommandMetrics metrics = new CommandMetrics();
+    public RateLimiter cooldown;
+    public RateLimiter rateLimit;
+    private final AtomicReference<CommandArguments> spareArguments = new AtomicReference<>();
 
     public CommandInfo(CommandController controller, Method method, String name, String usage, CommandParameterInfo[] parameters) {
         this.controller = controller;
@@ -22,7 +31,9 @@ public class CommandInfo {
         this.parameters = parameters;
         this.preMethod = null;
         this.postMethod = null;
-
+        this.invoker = CommandInvoker.compile(controller, method, true);
+        this.preInvoker = null;
+        this.postInvoker = null;
     }
 
     public CommandInfo(BaseCommand cmd, Method method, String name, String usage, CommandParameterInfo[] parameters, Method preMethod, Method postMethod) {
@@ -34,7 +45,27 @@ public class CommandInfo {
         this.controller = null;
         this.preMethod = preMethod;
         this.postMethod = postMethod;
+        this.invoker = CommandInvoker.compile(cmd, method, false);
+        this.preInvoker = preMethod != null ? CommandInvoker.compile(cmd, preMethod, false) : null;
+        this.postInvoker = postMethod != null ? CommandInvoker.compile(cmd, postMethod, false) : null;
+    }
+
+    public boolean isCompiled() {
+        return invoker != null && (preMethod == null || preInvoker != null) && (postMethod == null || postInvoker != null);
+    }
+
+    /**
+     * Takes the spare argument frame, or creates one if it is in use. Safe to call from several threads at once, each
+     * frame is only ever handed to one caller until it is released again.
+     */
+    CommandArguments acquireArguments() {
+        CommandArguments arguments = spareArguments.getAndSet(null);
+        return arguments != null ? arguments : new CommandArguments(parameters.length);
+    }
 
+    void releaseArguments(CommandArguments arguments) {
+        arguments.clear();
+        spareArguments.set(arguments);
     }
 
     public int getMinParamLength() {
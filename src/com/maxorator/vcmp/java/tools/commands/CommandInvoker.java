@@ -0,0 +1,121 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+import com.maxorator.vcmp.java.plugin.integration.player.Player;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * Pre-bound call site for a command method. The method handle is resolved once when the command is registered and
+ * reads each parameter straight out of {@link CommandArguments}, so primitive parameters are never boxed and
+ * dispatching a command does not go through reflection. Each command gets its own class generated with
+ * LambdaMetafactory which holds the handle in a final field, so its call site only ever sees that one handle.
+ */
+public class CommandInvoker {
+
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(void.class, Player.class, CommandArguments.class);
+    private static final MethodHandle GET_INT;
+    private static final MethodHandle GET_FLOAT;
+    private static final MethodHandle GET_BOOLEAN;
+    private static final MethodHandle GET_OBJECT;
+    private static final MethodHandle INVOKE_EXACT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            GET_INT = lookup.findVirtual(CommandArguments.class, "getInt", MethodType.methodType(int.class, int.class));
+            GET_FLOAT = lookup.findVirtual(CommandArguments.class, "getFloat", MethodType.methodType(float.class, int.class));
+            GET_BOOLEAN = lookup.findVirtual(CommandArguments.class, "getBoolean", MethodType.methodType(boolean.class, int.class));
+            GET_OBJECT = lookup.findVirtual(CommandArguments.class, "getObject", MethodType.methodType(Object.class, int.class));
+            INVOKE_EXACT = lookup.findStatic(CommandInvoker.class, "invokeExact", INVOKE_TYPE.insertParameterTypes(0, MethodHandle.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Invocation invocation;
+
+    private CommandInvoker(Invocation invocation) {
+        this.invocation = invocation;
+    }
+
+    /**
+     * @param target instance the method is invoked on
+     * @param method command, pre-command or post-command method
+     * @param passesPlayer whether the first method parameter receives the calling player instead of an argument
+     * @return invoker for the method, or null if the method cannot be accessed
+     */
+    public static CommandInvoker compile(Object target, Method method, boolean passesPlayer) {
+        try {
+            method.setAccessible(true);
+
+            Class<?>[] types = method.getParameterTypes();
+            int offset = passesPlayer ? 1 : 0;
+            MethodHandle handle = MethodHandles.lookup().unreflect(method).bindTo(target);
+            handle = handle.asType(handle.type().changeReturnType(void.class));
+
+            if (passesPlayer) {
+                handle = handle.asType(handle.type().changeParameterType(0, Player.class));
+            }
+
+            MethodHandle[] getters = new MethodHandle[types.length - offset];
+            int[] reorder = new int[types.length];
+
+            for (int i = 0; i < getters.length; i++) {
+                getters[i] = argumentGetter(types[i + offset], i);
+            }
+
+            for (int i = 0; i < reorder.length; i++) {
+                reorder[i] = i < offset ? 0 : 1;
+            }
+
+            handle = MethodHandles.filterArguments(handle, offset, getters);
+            handle = MethodHandles.permuteArguments(handle, INVOKE_TYPE, reorder);
+
+            return new CommandInvoker(generate(handle));
+        } catch (IllegalAccessException | RuntimeException e) {
+            System.err.println("Cannot compile invoker for " + method + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Invocation generate(MethodHandle handle) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType factoryType = MethodType.methodType(Invocation.class, MethodHandle.class);
+
+        try {
+            return (Invocation) LambdaMetafactory.metafactory(lookup, "invoke", factoryType, INVOKE_TYPE, INVOKE_EXACT, INVOKE_TYPE).getTarget().invokeExact(handle);
+        } catch (Throwable e) {
+            System.err.println("Cannot generate invoker class, falling back to a shared one (" + e + ").");
+            return (player, arguments) -> handle.invokeExact(player, arguments);
+        }
+    }
+
+    private static void invokeExact(MethodHandle handle, Player player, CommandArguments arguments) throws Throwable {
+        handle.invokeExact(player, arguments);
+    }
+
+    private static MethodHandle argumentGetter(Class<?> type, int index) {
+        if (type == int.class) {
+            return MethodHandles.insertArguments(GET_INT, 1, index);
+        } else if (type == float.class) {
+            return MethodHandles.insertArguments(GET_FLOAT, 1, index);
+        } else if (type == boolean.class) {
+            return MethodHandles.insertArguments(GET_BOOLEAN, 1, index);
+        } else {
+            MethodHandle getter = MethodHandles.insertArguments(GET_OBJECT, 1, index);
+            return getter.asType(getter.type().changeReturnType(type));
+        }
+    }
+
+    public void invoke(Player player, CommandArguments arguments) throws Throwable {
+        invocation.invoke(player, arguments);
+    }
+
+    interface Invocation {
+        void invoke(Player player, CommandArguments arguments) throws Throwable;
+    }
+}
@@ -0,0 +1,40 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+import com.maxorator.vcmp.java.tools.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live execution counters of one command. Dispatch latency covers the registry's own work from receiving the message
+ * until the command body starts, execution latency covers the body including pre and post methods.
+ */
+public class CommandMetrics {
+
+    final LongAdder invocations = new LongAdder();
+    final LongAdder parseFailures = new LongAdder();
+    final LongAdder accessDenials = new LongAdder();
+    final LongAdder rateLimited = new LongAdder();
+    final LongAdder validatorRejections = new LongAdder();
+    final LongAdder aborts = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LatencyHistogram dispatchLatency = new LatencyHistogram();
+    final LatencyHistogram executionLatency = new LatencyHistogram();
+
+    public CommandMetricsSnapshot snapshot(String name) {
+        return new CommandMetricsSnapshot(name, invocations.sum(), parseFailures.sum(), accessDenials.sum(), rateLimited.sum(),
+                validatorRejections.sum(), aborts.sum(), failures.sum(), dispatchLatency.snapshot(),
+                executionLatency.snapshot());
+    }
+
+    public void reset() {
+        invocations.reset();
+        parseFailures.reset();
+        accessDenials.reset();
+        rateLimited.reset();
+        validatorRejections.reset();
+        aborts.reset();
+        failures.reset();
+        dispatchLatency.reset();
+        executionLatency.reset();
+    }
+}
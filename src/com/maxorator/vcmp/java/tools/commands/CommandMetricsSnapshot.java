@@ -0,0 +1,41 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+import com.maxorator.vcmp.java.tools.metrics.HistogramSnapshot;
+
+/**
+ * Point in time copy of the {@link CommandMetrics} of one command.
+ */
+public class CommandMetricsSnapshot {
+
+    public final String name;
+    public final long invocations;
+    public final long parseFailures;
+    public final long accessDenials;
+    public final long rateLimited;
+    public final long validatorRejections;
+    public final long aborts;
+    public final long failures;
+    public final HistogramSnapshot dispatchLatency;
+    public final HistogramSnapshot executionLatency;
+
+    CommandMetricsSnapshot(String name, long invocations, long parseFailures, long accessDenials, long rateLimited,
+                           long validatorRejections, long aborts, long failures, HistogramSnapshot dispatchLatency,
+                           HistogramSnapshot executionLatency) {
+        this.name = name;
+        this.invocations = invocations;
+        this.parseFailures = parseFailures;
+        this.accessDenials = accessDenials;
+        this.rateLimited = rateLimited;
+        this.validatorRejections = validatorRejections;
+        this.aborts = aborts;
+        this.failures = failures;
+        this.dispatchLatency = dispatchLatency;
+        this.executionLatency = executionLatency;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("/%s: invocations=%d parseFailures=%d accessDenials=%d rateLimited=%d validatorRejections=%d aborts=%d failures=%d dispatch[%s] execution[%s]",
+                name, invocations, parseFailures, accessDenials, rateLimited, validatorRejections, aborts, failures, dispatchLatency, executionLatency);
+    }
+}
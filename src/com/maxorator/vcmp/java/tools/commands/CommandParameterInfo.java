@@ -7,6 +7,7 @@ public class CommandParameterInfo {
     public final boolean fuzzySearch;
     public final boolean allMatch;
     public final boolean optional;
+    public ParameterParser parser;
 
     public CommandParameterInfo(Class<?> klass, boolean mayNotFind, boolean fuzzySearch, boolean allMatch, boolean optional) {
         this.klass = klass;
@@ -5,31 +5,69 @@ import com.maxorator.vcmp.java.plugin.integration.vehicle.Vehicle;
 import com.maxorator.vcmp.java.plugin.integration.placeable.GameObject;
 import com.maxorator.vcmp.java.plugin.integration.player.Player;
 import com.maxorator.vcmp.java.plugin.integration.server.Server;
+import com.maxorator.vcmp.java.tools.timers.TimerRegistry;
+import com.maxorator.vcmp.java.tools.timers.WorkerThreads;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-
+import java.util.concurrent.Executor;
+
+/**
+ * Parses and dispatches player commands. processCommand() may be called from several threads at once: argument
+ * frames, rate limits and metrics are safe for concurrent dispatch, and commands keep their invocation state in a
+ * CommandContext. Registering commands, changing the configuration and the player connect, disconnect and name change
+ * hooks must be called from the server thread, and commands must not be registered while they may be dispatched from
+ * other threads.
+ */
 public class CommandRegistry {
 
     protected final Server server;
+    protected final TimerRegistry timers;
+    /**
+     * Read-only view of the registered commands keyed by name. Commands are looked up through the command index, so
+     * commands have to be added with {@link #registerCommand(CommandInfo, String[])}.
+     */
     protected final Map<String, CommandInfo> commands;
+    private final Map<String, CommandInfo> registeredCommands;
+    protected final CommandIndex commandIndex;
     protected final List<Class<?>> supportedTypes;
+    protected final PlayerNameIndex playerNames;
+    protected final Map<Class<?>, CommandValidator> validators;
     protected String prefix;
     private Colour colour;
     private String usagePrefix = "Usage: ";
     private boolean caseInsensitive;
+    private boolean playerIndexEnabled;
+    private Executor asyncExecutor;
+    private volatile boolean metricsEnabled = true;
+    private final long clockOrigin = System.nanoTime();
+    private final List<RateLimiter> rateLimiters = new ArrayList<>();
+    private volatile RateLimiter globalRateLimit;
+    private String rateLimitMessage = "You are using commands too quickly, wait %.1f seconds.";
 
     public CommandRegistry(Server server) {
+        this(server, null);
+    }
+
+    /**
+     * @param timers registry processed on the server thread, used to hand results of async commands back to it
+     */
+    public CommandRegistry(Server server, TimerRegistry timers) {
         this.server = server;
-        this.commands = new HashMap<>();
+        this.timers = timers;
+        this.registeredCommands = new HashMap<>();
+        this.commands = Collections.unmodifiableMap(registeredCommands);
+        this.commandIndex = new CommandIndex();
         this.supportedTypes = new ArrayList<>();
+        this.playerNames = new PlayerNameIndex();
+        this.validators = new HashMap<>();
 
         supportedTypes.add(String.class);
         supportedTypes.add(Integer.class);
@@ -65,6 +103,9 @@ public class CommandRegistry {
     }
 
     protected boolean hasSameParams(Method m1, Method m2) {
+        if (m1 == null || m2 == null) {
+            return false;
+        }
         if (m1.getParameterCount() == m2.getParameterCount()) {
             return Arrays.equals(m1.getParameterTypes(), m2.getParameterTypes());
         }
@@ -95,14 +136,14 @@ public class CommandRegistry {
             boolean allMatch = false;
 
             for (int j = 0; j < annotations[i].length; j++) {
-                if (annotations[i + 1][j] instanceof PartialMatch) {
+                if (annotations[i][j] instanceof PartialMatch) {
                     fuzzySearch = true;
                 } else if (annotations[i][j] instanceof NullIfNotFound) {
                     mayNotFind = true;
                 } else if (annotations[i][j] instanceof AllMatch) {
                     allMatch = true;
                 }
-                if (annotations[i + 1][j] instanceof Optional) {
+                if (annotations[i][j] instanceof Optional) {
                     optional = true;
                 }
             }
@@ -111,14 +152,15 @@ public class CommandRegistry {
                 return;
             }
 
-            if (!supportedTypes.contains(types[i])) {
-                System.err.println("Cannot add command " + commandName + ": Parameter " + (i + 2) + " is of unsupported type " + types[i + 1].getName() + ".");
+            parameters[i] = new CommandParameterInfo(types[i], mayNotFind, fuzzySearch, allMatch, optional);
+            parameters[i].parser = supportedTypes.contains(types[i]) ? createParser(parameters[i]) : null;
+
+            if (parameters[i].parser == null) {
+                System.err.println("Cannot add command " + commandName + ": Parameter " + (i + 1) + " is of unsupported type " + types[i].getName() + ".");
                 return;
             }
 
             builtUsage += "<" + types[i].getSimpleName().toLowerCase() + "> ";
-
-            parameters[i] = new CommandParameterInfo(types[i], mayNotFind, fuzzySearch, allMatch, optional);
         }
 
         String usage = config.usage().isEmpty() ? builtUsage : config.usage();
@@ -130,26 +172,20 @@ public class CommandRegistry {
 
         CommandInfo commandInfo = new CommandInfo(controller, method, commandName, usage, parameters, preHasSameSig ? pre : null, postHasSameSig ? post : null);
 
-        if (config.validator() != null) {
-            Constructor[] ctors = config.validator().getConstructors();
-            if (ctors.length == 0) {
-                System.err.println("ERROR: Failed to add converter " + config.name() + ", must have a default constructor!");
-            } else {
-                try {
-                    Object instance = ctors[0].newInstance();
-                    if (instance instanceof CommandValidator) {
-                        commandInfo.validator = (CommandValidator) instance;
-                    } else {
-                        System.err.println("ERROR: Failed to add converter " + config.name() + ", class must extend CommandValidator");
+        if (!commandInfo.isCompiled()) {
+            System.err.println("Cannot add command " + commandName + ": Failed to compile command invoker.");
+            return;
+        }
 
-                    }
-                } catch (Exception invocationTargetException) {
-                }
+        commandInfo.validator = getValidator(config.validator(), commandName);
 
-            }
+        if (config.async() && timers == null) {
+            System.err.println("WARNING: Command " + commandName + " will run synchronously, async commands require a TimerRegistry.");
         }
 
-        commands.put(commandInfo.name, commandInfo);
+        commandInfo.async = config.async() && timers != null;
+        configureRateLimits(commandInfo, config);
+        registerCommand(commandInfo, config.aliases());
     }
 
     protected void processMethod(CommandController controller, Method method, Command config) {
@@ -188,39 +224,98 @@ public class CommandRegistry {
                 return;
             }
 
-            if (!supportedTypes.contains(types[i])) {
+            parameters[i] = new CommandParameterInfo(types[i + 1], mayNotFind, fuzzySearch, allMatch, optional);
+            parameters[i].parser = supportedTypes.contains(types[i + 1]) ? createParser(parameters[i]) : null;
+
+            if (parameters[i].parser == null) {
                 System.err.println("Cannot add command " + commandName + ": Parameter " + (i + 2) + " is of unsupported type " + types[i + 1].getName() + ".");
                 return;
             }
 
             builtUsage += "<" + types[i + 1].getSimpleName().toLowerCase() + "> ";
-
-            parameters[i] = new CommandParameterInfo(types[i + 1], mayNotFind, fuzzySearch, allMatch, optional);
         }
 
         String usage = config.usage().isEmpty() ? builtUsage : config.usage();
 
         CommandInfo commandInfo = new CommandInfo(controller, method, commandName, usage, parameters);
 
-        if (config.validator() != null) {
-            Constructor[] ctors = config.validator().getConstructors();
-            if (ctors.length == 0) {
-                System.err.println("ERROR: Failed to add converter " + config.name() + ", must have a default constructor!");
+        if (!commandInfo.isCompiled()) {
+            System.err.println("Cannot add command " + commandName + ": Failed to compile command invoker.");
+            return;
+        }
+
+        commandInfo.validator = getValidator(config.validator(), commandName);
+
+        if (config.async() && timers == null) {
+            System.err.println("WARNING: Command " + commandName + " will run synchronously, async commands require a TimerRegistry.");
+        }
+
+        commandInfo.async = config.async() && timers != null;
+        configureRateLimits(commandInfo, config);
+        registerCommand(commandInfo, config.aliases());
+    }
+
+    /**
+     * Validators are shared by every command naming the same class, so they must not keep per-invocation state.
+     *
+     * @return shared instance of the validator class, or null if the command is not validated
+     */
+    protected CommandValidator getValidator(Class<?> klass, String commandName) {
+        if (klass == null || klass == CommandValidator.class) {
+            return null;
+        }
+
+        CommandValidator validator = validators.get(klass);
+
+        if (validator == null && !validators.containsKey(klass)) {
+            if (!CommandValidator.class.isAssignableFrom(klass)) {
+                System.err.println("ERROR: Failed to add validator for " + commandName + ", class must extend CommandValidator");
             } else {
                 try {
-                    Object instance = ctors[0].newInstance();
-                    if (instance instanceof CommandValidator) {
-                        commandInfo.validator = (CommandValidator) instance;
-                    } else {
-                        System.err.println("ERROR: Failed to add converter " + config.name() + ", class must extend CommandValidator");
-
-                    }
-                } catch (Exception invocationTargetException) {
+                    validator = (CommandValidator) klass.getConstructor().newInstance();
+                } catch (NoSuchMethodException e) {
+                    System.err.println("ERROR: Failed to add validator for " + commandName + ", must have a default constructor!");
+                } catch (ReflectiveOperationException e) {
+                    System.err.println("ERROR: Failed to add validator for " + commandName + ": " + e);
                 }
+            }
 
+            validators.put(klass, validator);
+        }
+
+        return validator;
+    }
+
+    private void configureRateLimits(CommandInfo commandInfo, Command config) {
+        synchronized (rateLimiters) {
+            if (config.cooldown() > 0) {
+                commandInfo.cooldown = new RateLimiter(1, config.cooldown());
+                rateLimiters.add(commandInfo.cooldown);
             }
+
+            if (config.rateLimit() > 0 && config.ratePeriod() > 0) {
+                commandInfo.rateLimit = new RateLimiter(config.rateLimit(), config.ratePeriod());
+                rateLimiters.add(commandInfo.rateLimit);
+            }
+        }
+    }
+
+    protected void registerCommand(CommandInfo commandInfo, String[] aliases) {
+        addRoute(commandInfo.name, commandInfo);
+
+        for (String alias : aliases) {
+            addRoute(alias, commandInfo);
+        }
+
+        registeredCommands.put(commandInfo.name, commandInfo);
+    }
+
+    private void addRoute(String path, CommandInfo commandInfo) {
+        String existing = commandIndex.add(path, commandInfo);
+
+        if (existing != null) {
+            System.err.println("WARNING: Command " + path + " only differs by case from command " + existing + ", case insensitive lookups will resolve to " + existing + ".");
         }
-        commands.put(commandInfo.name, commandInfo);
     }
 
     public void addController(CommandController controller) {
@@ -240,52 +335,157 @@ public class CommandRegistry {
         }
     }
 
-    private Float parseAsFloat(Player player, String value) {
-        try {
-            return Float.valueOf(value);
-        } catch (NumberFormatException e) {
-            sendResponse(player, String.format("%s is not a valid float.", value));
-            throw new AbortCommandException(e);
+    /**
+     * Resolves the parser for a parameter when its command is registered. Subclasses may override this together with
+     * {@link #supportedTypes} to accept additional parameter types.
+     *
+     * @return parser for the parameter, or null if its type is not supported
+     */
+    protected ParameterParser createParser(CommandParameterInfo parameterInfo) {
+        Class<?> klass = parameterInfo.klass;
+
+        if (klass == int.class) {
+            return this::parseAsInt;
+        } else if (klass == Integer.class) {
+            return this::parseAsBoxedInteger;
+        } else if (klass == float.class) {
+            return this::parseAsFloat;
+        } else if (klass == Float.class) {
+            return this::parseAsBoxedFloat;
+        } else if (klass == boolean.class) {
+            return this::parseAsBoolean;
+        } else if (klass == Boolean.class) {
+            return this::parseAsBoxedBoolean;
+        } else if (klass == Player.class) {
+            return (player, value, arguments, index) -> parseAsPlayer(player, value, parameterInfo, arguments, index);
+        } else if (klass == Vehicle.class) {
+            return (player, value, arguments, index) -> parseAsVehicle(player, value, parameterInfo, arguments, index);
+        } else if (klass == GameObject.class) {
+            return (player, value, arguments, index) -> parseAsObject(player, value, parameterInfo, arguments, index);
+        } else if (klass == String.class) {
+            return CommandRegistry::parseAsString;
+        } else {
+            return null;
         }
     }
 
-    private Integer parseAsInteger(Player player, String value) {
-        try {
-            return Integer.valueOf(value);
-        } catch (NumberFormatException e) {
+    private long parseInteger(Player player, String value) {
+        long result = NumberParsing.parseInt(value, 0);
+
+        if (result == NumberParsing.INVALID) {
             sendResponse(player, String.format("%s is not a valid integer.", value));
-            throw new AbortCommandException(e);
         }
+
+        return result;
+    }
+
+    private boolean parseAsInt(Player player, String value, CommandArguments arguments, int index) {
+        long result = parseInteger(player, value);
+
+        if (result == NumberParsing.INVALID) {
+            return false;
+        }
+
+        arguments.setInt(index, (int) result);
+        return true;
+    }
+
+    private boolean parseAsBoxedInteger(Player player, String value, CommandArguments arguments, int index) {
+        long result = parseInteger(player, value);
+
+        if (result == NumberParsing.INVALID) {
+            return false;
+        }
+
+        arguments.setObject(index, (int) result);
+        return true;
     }
 
-    private Boolean parseAsBoolean(Player player, String value) {
+    private boolean parseAsFloat(Player player, String value, CommandArguments arguments, int index) {
+        if (!NumberParsing.isFloat(value)) {
+            sendResponse(player, String.format("%s is not a valid float.", value));
+            return false;
+        }
+
+        arguments.setFloat(index, Float.parseFloat(value));
+        return true;
+    }
+
+    private boolean parseAsBoxedFloat(Player player, String value, CommandArguments arguments, int index) {
+        if (!parseAsFloat(player, value, arguments, index)) {
+            return false;
+        }
+
+        arguments.setObject(index, arguments.getFloat(index));
+        return true;
+    }
+
+    private boolean parseAsBoolean(Player player, String value, CommandArguments arguments, int index) {
         if ("true".equals(value) || "t".equals(value) || "on".equals(value)) {
-            return true;
+            arguments.setBoolean(index, true);
         } else if ("false".equals(value) || "f".equals(value) || "off".equals(value)) {
-            return false;
+            arguments.setBoolean(index, false);
         } else {
-            Integer intValue = parseAsInteger(player, value);
+            long intValue = parseInteger(player, value);
 
-            if (intValue == 1) {
+            if (intValue == NumberParsing.INVALID) {
                 return false;
+            } else if (intValue == 1) {
+                arguments.setBoolean(index, false);
             } else if (intValue == 0) {
-                return true;
+                arguments.setBoolean(index, true);
             } else {
                 sendResponse(player, String.format("Invalid toggle value %s. Must be either 0/1, t/f, true/false or on/off.", value));
-                throw new AbortCommandException(null);
+                return false;
             }
         }
+
+        return true;
+    }
+
+    private boolean parseAsBoxedBoolean(Player player, String value, CommandArguments arguments, int index) {
+        if (!parseAsBoolean(player, value, arguments, index)) {
+            return false;
+        }
+
+        arguments.setObject(index, arguments.getBoolean(index));
+        return true;
     }
 
-    private Player parseAsPlayer(Player player, String value, CommandParameterInfo parameterInfo) {
+    private static boolean parseAsString(Player player, String value, CommandArguments arguments, int index) {
+        arguments.setObject(index, value);
+        return true;
+    }
+
+    private boolean parseAsPlayer(Player player, String value, CommandParameterInfo parameterInfo, CommandArguments arguments, int index) {
         Player target;
 
-        if (value.charAt(0) == '#' && !parameterInfo.allMatch) {
-            target = server.getPlayer(parseAsInteger(player, value.substring(1)));
+        if (value.isEmpty()) {
+            // A quoted empty argument ("") names no player.
+            target = null;
+        } else if (value.charAt(0) == '#' && !parameterInfo.allMatch) {
+            long playerId = NumberParsing.parseInt(value, 1);
+
+            if (playerId == NumberParsing.INVALID) {
+                sendResponse(player, String.format("%s is not a valid integer.", value.substring(1)));
+                return false;
+            }
+
+            target = server.getPlayer((int) playerId);
         } else {
             target = server.findPlayer(value);
 
-            if (target == null && parameterInfo.fuzzySearch) {
+            if (target == null && parameterInfo.fuzzySearch && playerIndexEnabled) {
+                int[] matches = new int[2];
+                int count = playerNames.findAll(value, false, matches);
+
+                if (count > 1) {
+                    sendResponse(player, String.format("More than 1 match for name '%s': '%s', '%s' and %d others.", value, playerNames.getName(matches[0]), playerNames.getName(matches[1]), count - 2));
+                    return false;
+                } else if (count == 1) {
+                    target = server.getPlayer(matches[0]);
+                }
+            } else if (target == null && parameterInfo.fuzzySearch) {
                 List<String> matches = new ArrayList<>();
 
                 for (Player inst : server.getAllPlayers()) {
@@ -299,205 +499,455 @@ public class CommandRegistry {
 
                 if (matches.size() > 1) {
                     sendResponse(player, String.format("More than 1 match for name '%s': '%s', '%s' and %d others.", value, matches.get(0), matches.get(1), matches.size() - 2));
-                    throw new AbortCommandException(null);
+                    return false;
                 }
             } else if (target == null && parameterInfo.allMatch) {
+                long playerId = NumberParsing.parseInt(value, 0);
 
-                boolean isNumeric = value.chars().allMatch(Character::isDigit);
-
-                if (isNumeric) {
-                    target = server.getPlayer(Integer.valueOf(value));
-                    if (target != null) {
-                        return target;
-                    }
+                if (playerId >= 0) {
+                    target = server.getPlayer((int) playerId);
                 }
 
-                for (Player inst : server.getAllPlayers()) {
-                    String name = inst.getName();
+                if (target == null && playerIndexEnabled) {
+                    int playerIndex = playerNames.findFirst(value, true);
 
-                    if (name.toLowerCase().contains(value.toLowerCase())) {
-                        return inst;
+                    if (playerIndex != -1) {
+                        target = server.getPlayer(playerIndex);
                     }
-                }
+                } else if (target == null) {
+                    String lowerValue = value.toLowerCase();
 
+                    for (Player inst : server.getAllPlayers()) {
+                        if (inst.getName().toLowerCase().contains(lowerValue)) {
+                            target = inst;
+                            break;
+                        }
+                    }
+                }
             }
         }
 
         if (target == null && !parameterInfo.mayNotFind) {
             sendResponse(player, String.format("Found no matches for player '%s'.", value));
-            throw new AbortCommandException(null);
+            return false;
         }
 
-        return target;
+        arguments.setObject(index, target);
+        return true;
     }
 
-    private Vehicle parseAsVehicle(Player player, String value, CommandParameterInfo parameterInfo) {
-        int vehicleId = parseAsInteger(player, value);
-        Vehicle target = server.getVehicle(vehicleId);
+    private boolean parseAsVehicle(Player player, String value, CommandParameterInfo parameterInfo, CommandArguments arguments, int index) {
+        long vehicleId = parseInteger(player, value);
+
+        if (vehicleId == NumberParsing.INVALID) {
+            return false;
+        }
+
+        Vehicle target = server.getVehicle((int) vehicleId);
 
         if (target == null && !parameterInfo.mayNotFind) {
             sendResponse(player, String.format("Vehicle %d does not exist.", vehicleId));
-            throw new AbortCommandException(null);
+            return false;
         }
 
-        return target;
+        arguments.setObject(index, target);
+        return true;
     }
 
-    private GameObject parseAsObject(Player player, String value, CommandParameterInfo parameterInfo) {
-        int objectId = parseAsInteger(player, value);
-        GameObject target = server.getObject(objectId);
+    private boolean parseAsObject(Player player, String value, CommandParameterInfo parameterInfo, CommandArguments arguments, int index) {
+        long objectId = parseInteger(player, value);
+
+        if (objectId == NumberParsing.INVALID) {
+            return false;
+        }
+
+        GameObject target = server.getObject((int) objectId);
 
         if (target == null && !parameterInfo.mayNotFind) {
             sendResponse(player, String.format("Object %d does not exist.", objectId));
-            throw new AbortCommandException(null);
+            return false;
         }
 
-        return target;
+        arguments.setObject(index, target);
+        return true;
     }
 
-    private Object parseParameter(Player player, CommandParameterInfo parameterInfo, String value) {
-        if (parameterInfo.klass == Integer.class || parameterInfo.klass == int.class) {
-            return parseAsInteger(player, value);
-        } else if (parameterInfo.klass == Float.class || parameterInfo.klass == float.class) {
-            return parseAsFloat(player, value);
-        } else if (parameterInfo.klass == Boolean.class || parameterInfo.klass == boolean.class) {
-            return parseAsBoolean(player, value);
-        } else if (parameterInfo.klass == Player.class) {
-            return parseAsPlayer(player, value, parameterInfo);
-        } else if (parameterInfo.klass == Vehicle.class) {
-            return parseAsVehicle(player, value, parameterInfo);
-        } else if (parameterInfo.klass == GameObject.class) {
-            return parseAsObject(player, value, parameterInfo);
-        } else {
-            return value;
+    private boolean parseArguments(Player player, CommandInfo command, String[] parameters, CommandArguments arguments) {
+        for (int i = 0; i < command.parameters.length && i < parameters.length; i++) {
+            if (!command.parameters[i].parser.parse(player, parameters[i], arguments, i)) {
+                command.metrics.parseFailures.increment();
+                return false;
+            }
         }
+
+        return true;
     }
 
-    private boolean runCommand(Player player, CommandInfo command, String[] parameters) {
-        if (command.parameters.length != parameters.length) {
-            return false;
+    @SuppressWarnings("deprecation")
+    private void invokeCommand(CommandContext context, CommandArguments arguments, long started) throws Throwable {
+        Player player = context.player;
+        CommandInfo command = context.command;
+        long invoked = metricsEnabled ? System.nanoTime() : 0;
+
+        command.metrics.invocations.increment();
+
+        if (metricsEnabled) {
+            command.metrics.dispatchLatency.record(invoked - started);
         }
 
         try {
-
             if (command.controller != null) {
-                Object[] values = new Object[command.parameters.length + 1];
-                values[0] = player;
-
-                boolean isValid = command.validator == null;
-
-                if (command.validator != null) {
-                    isValid = command.validator.isValid(player);
+                command.invoker.invoke(player, arguments);
+            } else {
+                if (!command.async) {
+                    command.baseCommand.player = player;
+                }
+                if (command.preInvoker != null) {
+                    command.preInvoker.invoke(player, arguments);
                 }
+                command.invoker.invoke(player, arguments);
+                if (command.postInvoker != null) {
+                    command.postInvoker.invoke(player, arguments);
+                }
+            }
+        } finally {
+            if (metricsEnabled) {
+                command.metrics.executionLatency.record(System.nanoTime() - invoked);
+            }
+        }
+    }
 
-                if (isValid) {
-                    for (int i = 0; i < command.parameters.length; i++) {
-                        if (i >= parameters.length) {
-                            values[i + 1] = null;
-                        } else {
-                            values[i + 1] = parseParameter(player, command.parameters[i], parameters[i]);
-                        }
+    private void invokeCommandAsync(CommandContext context, CommandArguments arguments, long started) {
+        Player player = context.player;
+        CommandInfo command = context.command;
+
+        getAsyncExecutor().execute(() -> {
+            CommandContext previous = CommandContext.enter(context);
+
+            try {
+                invokeCommand(context, arguments, started);
+            } catch (AbortCommandException e) {
+                command.metrics.aborts.increment();
+            } catch (Throwable e) {
+                command.metrics.failures.increment();
+                runOnServerThread(() -> {
+                    reportFailure(player, command, e instanceof Exception ? (Exception) e : new RuntimeException(e));
+
+                    // Synchronous failures are rethrown to the caller, async ones would otherwise go unnoticed.
+                    if (command.baseCommand == null) {
+                        System.err.println("Async command " + command.name + " failed: " + e);
                     }
-                    command.method.invoke(command.controller, values);
-                }
+                });
+            } finally {
+                CommandContext.exit(previous);
+            }
+        });
+    }
 
-            } else {
-                Object[] values = new Object[command.parameters.length];
+    private void reportFailure(Player player, CommandInfo command, Exception cause) {
+        if (player != null) {
+            sendResponse(player, "Something went wrong.");
+        }
+        if (command.baseCommand != null) {
+            command.baseCommand.failedRun(cause);
+        }
+    }
 
-                boolean isValid = command.validator == null;
+    private boolean runCommand(CommandContext context, String[] parameters, long started) {
+        Player player = context.player;
+        CommandInfo command = context.command;
 
-                if (command.validator != null) {
-                    isValid = command.validator.isValid(player);
-                }
-                if (isValid) {
+        if (command.parameters.length != parameters.length) {
+            command.metrics.parseFailures.increment();
+            return false;
+        }
 
-                    for (int i = 0; i < command.parameters.length; i++) {
-                        if (i >= parameters.length) {
-                            values[i + 1] = null;
-                        } else {
-                            values[i + 1] = parseParameter(player, command.parameters[i], parameters[i]);
-                        }
-                    }
+        CommandArguments arguments = command.async ? new CommandArguments(command.parameters.length) : command.acquireArguments();
 
-                    command.baseCommand.player = player;
-                    if (command.preMethod != null) {
-                        command.preMethod.invoke(command.baseCommand, values);
-                    }
-                    command.method.invoke(command.baseCommand, values);
-                    if (command.postMethod != null) {
-                        command.postMethod.invoke(command.baseCommand, values);
-                    }
-                }
+        try {
+            boolean isValid = command.validator == null;
 
+            if (command.validator != null) {
+                isValid = command.validator.isValid(player);
+            }
+
+            if (!isValid) {
+                command.metrics.validatorRejections.increment();
+            } else if (parseArguments(player, command, parameters, arguments)) {
+                if (command.async) {
+                    invokeCommandAsync(context, arguments, started);
+                } else {
+                    invokeCommand(context, arguments, started);
+                }
             }
 
         } catch (AbortCommandException e) {
+            command.metrics.aborts.increment();
             return true;
-        } catch (Exception e) {
-            if (player != null) {
-                sendResponse(player, "Something went wrong.");
+        } catch (Throwable e) {
+            command.metrics.failures.increment();
+            if (e instanceof Error) {
+                throw (Error) e;
             }
-            if (command.baseCommand != null) {
-                command.baseCommand.failedRun(e);
+            Exception cause = e instanceof Exception ? (Exception) e : new RuntimeException(e);
+            reportFailure(player, command, cause);
+            throw new RuntimeException(cause);
+        } finally {
+            if (!command.async) {
+                command.releaseArguments(arguments);
             }
-            throw new RuntimeException(e);
         }
 
         return true;
     }
 
-    private CommandInfo getCaseInsensitiveCommand(String cmd) {
-        for (Entry<String, CommandInfo> e : commands.entrySet()) {
-            if (e.getKey().equalsIgnoreCase(cmd)) {
-                return e.getValue();
+    private boolean acquireRateLimits(Player player, CommandInfo command) {
+        RateLimiter globalRateLimit = this.globalRateLimit;
+
+        if (globalRateLimit == null && command.cooldown == null && command.rateLimit == null) {
+            return true;
+        }
+
+        int playerId = player.getId();
+        long now = System.nanoTime() - clockOrigin;
+        long delay;
+
+        // Checking and taking the permits of all limiters has to be atomic when commands are dispatched in parallel.
+        synchronized (rateLimiters) {
+            delay = getRateLimitDelay(globalRateLimit, command, playerId, now);
+
+            if (delay == 0) {
+                if (globalRateLimit != null) {
+                    globalRateLimit.acquire(playerId, now);
+                }
+                if (command.cooldown != null) {
+                    command.cooldown.acquire(playerId, now);
+                }
+                if (command.rateLimit != null) {
+                    command.rateLimit.acquire(playerId, now);
+                }
             }
         }
-        return null;
+
+        if (delay > 0) {
+            if (rateLimitMessage != null) {
+                sendResponse(player, String.format(rateLimitMessage, delay / 1e9));
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    private static long getRateLimitDelay(RateLimiter globalRateLimit, CommandInfo command, int playerId, long now) {
+        long delay = 0;
+
+        if (globalRateLimit != null) {
+            delay = globalRateLimit.getDelay(playerId, now);
+        }
+        if (command.cooldown != null) {
+            delay = Math.max(delay, command.cooldown.getDelay(playerId, now));
+        }
+        if (command.rateLimit != null) {
+            delay = Math.max(delay, command.rateLimit.getDelay(playerId, now));
+        }
+
+        return delay;
+    }
+
+    /**
+     * Limits how many registered commands a player may use, on top of the limits of the individual commands.
+     *
+     * @param commands number of commands a player may burst within the period, 0 to remove the limit
+     * @param periodMillis milliseconds over which those commands are regained
+     */
+    public void setGlobalRateLimit(int commands, long periodMillis) {
+        synchronized (rateLimiters) {
+            if (globalRateLimit != null) {
+                rateLimiters.remove(globalRateLimit);
+            }
+
+            globalRateLimit = commands > 0 ? new RateLimiter(commands, periodMillis) : null;
+
+            if (globalRateLimit != null) {
+                rateLimiters.add(globalRateLimit);
+            }
+        }
+    }
+
+    /**
+     * @return the rateLimitMessage
+     */
+    public String getRateLimitMessage() {
+        return rateLimitMessage;
+    }
+
+    /**
+     * @param rateLimitMessage format of the response to a rate limited command, given the seconds to wait as a
+     * floating point argument, or null to reject silently
+     */
+    public void setRateLimitMessage(String rateLimitMessage) {
+        this.rateLimitMessage = rateLimitMessage;
+    }
+
+    /**
+     * Queues work to run on the server thread during the next server frame. Async commands use this to apply their
+     * results to game state.
+     */
+    public void runOnServerThread(Runnable runnable) {
+        if (timers == null) {
+            throw new IllegalStateException("CommandRegistry was created without a TimerRegistry.");
+        }
+
+        timers.execute(runnable);
+    }
+
+    /**
+     * @return executor async commands run on, created on first use
+     */
+    public synchronized Executor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = WorkerThreads.newExecutor("command-worker", Runtime.getRuntime().availableProcessors());
+        }
+
+        return asyncExecutor;
+    }
+
+    /**
+     * @param asyncExecutor executor async commands run on instead of the default worker pool
+     */
+    public synchronized void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
     }
 
     public boolean processCommand(Player player, String message) {
-        String[] parts = message.trim().split("\\s+", 2);
-        CommandInfo command = commands.get(parts[0]);
+        long started = metricsEnabled ? System.nanoTime() : 0;
+        int nameEnd = CommandTokenizer.skipWhitespace(message, 0);
+        CommandIndex.Route route = commandIndex.find(message, nameEnd, caseInsensitive);
+
+        if (route == null) {
+            return false;
+        }
 
-        if (command == null) {
-            if (this.caseInsensitive) {
-                command = getCaseInsensitiveCommand(parts[0]);
-                if (command == null) {
+        CommandInfo command = route.command;
+
+        for (int i = 0; i < route.tokens; i++) {
+            nameEnd = CommandTokenizer.findTokenEnd(message, CommandTokenizer.skipWhitespace(message, nameEnd));
+        }
+
+        if (player != null && !acquireRateLimits(player, command)) {
+            command.metrics.rateLimited.increment();
+            return true;
+        }
+
+        CommandContext context = new CommandContext(this, command, player);
+        CommandContext previous = CommandContext.enter(context);
+
+        try {
+            if (command.controller != null) {
+                if (!command.controller.checkAccess(player)) {
+                    command.metrics.accessDenials.increment();
                     return false;
                 }
             } else {
-                return false;
+                if (!command.baseCommand.checkAccess()) {
+                    command.metrics.accessDenials.increment();
+                    return false;
+                }
             }
 
-        }
+            String[] parameters = CommandTokenizer.split(message, nameEnd, command.endsWithString() ? command.parameters.length : 0);
 
-        if (command.controller != null) {
-            if (!command.controller.checkAccess(player)) {
-                return false;
-            }
-        } else {
-            if (!command.baseCommand.checkAccess()) {
-                return false;
+            if (!runCommand(context, parameters, started)) {
+                if (player != null) {
+                    sendResponse(player, String.format(this.usagePrefix + "/%s %s", command.name, command.usage));
+                }
             }
+        } finally {
+            CommandContext.exit(previous);
         }
 
-        String[] parameters = new String[0];
+        return true;
+    }
 
-        if (parts.length > 1) {
-            if (command.endsWithString()) {
-                parameters = parts[1].split("\\s+", command.parameters.length);
-            } else {
-                parameters = parts[1].split("\\s+");
-            }
+    /**
+     * Switches partial player name matching over to the incremental name index. The caller must forward player
+     * connects, disconnects and name changes from then on, which {@link
+     * com.maxorator.vcmp.java.tools.events.DelegatingEventHandler} does.
+     */
+    public void enablePlayerIndex() {
+        playerNames.clear();
+
+        for (Player player : server.getAllPlayers()) {
+            playerNames.add(player.getId(), player.getName());
         }
 
-        if (!runCommand(player, command, parameters)) {
-            if (player != null) {
-                sendResponse(player, String.format(this.usagePrefix + "/%s %s", command.name, command.usage));
+        playerIndexEnabled = true;
+    }
+
+    public void onPlayerConnect(Player player) {
+        if (playerIndexEnabled) {
+            playerNames.add(player.getId(), player.getName());
+        }
+    }
+
+    public void onPlayerDisconnect(Player player) {
+        if (playerIndexEnabled) {
+            playerNames.remove(player.getId());
+        }
+
+        synchronized (rateLimiters) {
+            for (RateLimiter rateLimiter : rateLimiters) {
+                rateLimiter.clear(player.getId());
             }
         }
+    }
 
-        return true;
+    public void onPlayerNameChange(Player player, String newName) {
+        if (playerIndexEnabled) {
+            playerNames.add(player.getId(), newName);
+        }
+    }
+
+    /**
+     * @return snapshots of the metrics of every registered command, keyed by command name
+     */
+    public Map<String, CommandMetricsSnapshot> getMetrics() {
+        Map<String, CommandMetricsSnapshot> snapshots = new LinkedHashMap<>();
+
+        for (CommandInfo command : commands.values()) {
+            snapshots.put(command.name, command.metrics.snapshot(command.name));
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * @return snapshot of the metrics of the command, or null if there is no command with this name
+     */
+    public CommandMetricsSnapshot getMetrics(String name) {
+        CommandInfo command = commands.get(name);
+        return command != null ? command.metrics.snapshot(command.name) : null;
+    }
+
+    public void resetMetrics() {
+        for (CommandInfo command : commands.values()) {
+            command.metrics.reset();
+        }
+    }
+
+    /**
+     * @return the metricsEnabled
+     */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * @param metricsEnabled whether command latencies are measured, counters are always kept
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
     }
 
     /**
@@ -541,4 +991,18 @@ public class CommandRegistry {
     public void setCaseInsensitive(boolean caseInsensitive) {
         this.caseInsensitive = caseInsensitive;
     }
+
+    /**
+     * @return the prefixMatching
+     */
+    public boolean isPrefixMatching() {
+        return commandIndex.isPrefixMatching();
+    }
+
+    /**
+     * @param prefixMatching whether a command may be typed as any prefix that no other command shares
+     */
+    public void setPrefixMatching(boolean prefixMatching) {
+        commandIndex.setPrefixMatching(prefixMatching);
+    }
 }
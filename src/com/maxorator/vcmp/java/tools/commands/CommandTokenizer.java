@@ -0,0 +1,106 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+/**
+ * Index based tokenizer for command messages. Tokens are separated by whitespace, and an argument wrapped in double
+ * quotes may contain whitespace.
+ */
+public final class CommandTokenizer {
+
+    private static final String[] NO_TOKENS = new String[0];
+
+    private CommandTokenizer() {
+    }
+
+    public static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    public static int skipWhitespace(String message, int index) {
+        while (index < message.length() && isWhitespace(message.charAt(index))) {
+            index++;
+        }
+
+        return index;
+    }
+
+    /**
+     * @return index just past the unquoted token starting at index
+     */
+    public static int findTokenEnd(String message, int index) {
+        while (index < message.length() && !isWhitespace(message.charAt(index))) {
+            index++;
+        }
+
+        return index;
+    }
+
+    /**
+     * Splits the arguments that follow the command name.
+     *
+     * @param message full command message
+     * @param start index to start tokenizing from
+     * @param limit if positive, maximum number of tokens, the last of which receives the rest of the message
+     * @return argument tokens with quotes removed
+     */
+    public static String[] split(String message, int start, int limit) {
+        int count = 0;
+        int index = skipWhitespace(message, start);
+
+        while (index < message.length() && (limit <= 0 || count < limit)) {
+            index = skipWhitespace(message, nextToken(message, index));
+            count++;
+        }
+
+        if (count == 0) {
+            return NO_TOKENS;
+        }
+
+        String[] tokens = new String[count];
+        int end = trimEnd(message);
+        index = skipWhitespace(message, start);
+
+        for (int i = 0; i < count; i++) {
+            int tokenEnd = nextToken(message, index);
+
+            if (i == count - 1 && limit > 0 && count == limit && tokenEnd < end) {
+                tokens[i] = message.substring(index, end);
+            } else {
+                tokens[i] = unquote(message, index, tokenEnd);
+            }
+
+            index = skipWhitespace(message, tokenEnd);
+        }
+
+        return tokens;
+    }
+
+    private static int nextToken(String message, int index) {
+        if (message.charAt(index) == '"') {
+            int close = message.indexOf('"', index + 1);
+
+            if (close != -1 && (close + 1 == message.length() || isWhitespace(message.charAt(close + 1)))) {
+                return close + 1;
+            }
+        }
+
+        return findTokenEnd(message, index);
+    }
+
+    private static String unquote(String message, int start, int end) {
+        if (end - start >= 2 && message.charAt(start) == '"' && message.charAt(end - 1) == '"') {
+            return message.substring(start + 1, end - 1);
+        }
+
+        return message.substring(start, end);
+    }
+
+    private static int trimEnd(String message) {
+        int end = message.length();
+
+        while (end > 0 && isWhitespace(message.charAt(end - 1))) {
+            end--;
+        }
+
+        return end;
+    }
+}
@@ -0,0 +1,109 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+/**
+ * Number parsing for command arguments that reports invalid input through return values instead of
+ * NumberFormatException.
+ */
+final class NumberParsing {
+
+    static final long INVALID = Long.MIN_VALUE;
+
+    private NumberParsing() {
+    }
+
+    /**
+     * @return decimal int starting at the given offset of value, or {@link #INVALID}
+     */
+    static long parseInt(String value, int start) {
+        int length = value.length();
+
+        if (start >= length) {
+            return INVALID;
+        }
+
+        char first = value.charAt(start);
+        boolean negative = first == '-';
+
+        if (negative || first == '+') {
+            if (++start == length) {
+                return INVALID;
+            }
+        }
+
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long result = 0;
+
+        for (int i = start; i < length; i++) {
+            int digit = value.charAt(i) - '0';
+
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+
+            result = result * 10 + digit;
+
+            if (result > limit) {
+                return INVALID;
+            }
+        }
+
+        return negative ? -result : result;
+    }
+
+    /**
+     * @return whether value is a plain decimal number Float.parseFloat accepts, optionally with an exponent
+     */
+    static boolean isFloat(String value) {
+        int length = value.length();
+        int i = 0;
+
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            i++;
+        }
+
+        int digits = 0;
+
+        while (i < length && isDigit(value.charAt(i))) {
+            i++;
+            digits++;
+        }
+
+        if (i < length && value.charAt(i) == '.') {
+            i++;
+
+            while (i < length && isDigit(value.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+
+        if (digits == 0) {
+            return false;
+        }
+
+        if (i < length && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            i++;
+
+            if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+                i++;
+            }
+
+            int exponentDigits = 0;
+
+            while (i < length && isDigit(value.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+
+            if (exponentDigits == 0) {
+                return false;
+            }
+        }
+
+        return i == length;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,19 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+import com.maxorator.vcmp.java.plugin.integration.player.Player;
+
+/**
+ * Converts one command argument. A parser is resolved once per {@link CommandParameterInfo} when the command is
+ * registered.
+ */
+public interface ParameterParser {
+
+    /**
+     * @param player player who issued the command
+     * @param value raw argument text
+     * @param arguments storage for the parsed value
+     * @param index parameter position to store the value at
+     * @return false if the value was rejected, in which case the parser has already told the player why
+     */
+    boolean parse(Player player, String value, CommandArguments arguments, int index);
+}
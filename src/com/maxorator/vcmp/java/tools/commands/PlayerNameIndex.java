@@ -0,0 +1,152 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Substring index over the names of connected players, keyed by player id. Every lower-cased substring of up to
+ * {@link #GRAM_LENGTH} characters of a name maps to the ids of the players whose name contains it, so a lookup only
+ * has to verify the players that share the rarest gram of the searched text.
+ */
+public class PlayerNameIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, BitSet> postings = new HashMap<>();
+    private String[] names = new String[0];
+    private String[] lowerNames = new String[0];
+
+    public void add(int playerId, String name) {
+        remove(playerId);
+
+        if (playerId >= names.length) {
+            int capacity = Math.max(playerId + 1, names.length * 2);
+            names = Arrays.copyOf(names, capacity);
+            lowerNames = Arrays.copyOf(lowerNames, capacity);
+        }
+
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        names[playerId] = name;
+        lowerNames[playerId] = lowerName;
+
+        for (int start = 0; start < lowerName.length(); start++) {
+            for (int end = start + 1; end <= lowerName.length() && end - start <= GRAM_LENGTH; end++) {
+                postings.computeIfAbsent(lowerName.substring(start, end), k -> new BitSet()).set(playerId);
+            }
+        }
+    }
+
+    public void remove(int playerId) {
+        if (playerId < 0 || playerId >= names.length || names[playerId] == null) {
+            return;
+        }
+
+        String lowerName = lowerNames[playerId];
+
+        for (int start = 0; start < lowerName.length(); start++) {
+            for (int end = start + 1; end <= lowerName.length() && end - start <= GRAM_LENGTH; end++) {
+                String gram = lowerName.substring(start, end);
+                BitSet ids = postings.get(gram);
+
+                if (ids != null) {
+                    ids.clear(playerId);
+
+                    if (ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+
+        names[playerId] = null;
+        lowerNames[playerId] = null;
+    }
+
+    public void clear() {
+        postings.clear();
+        Arrays.fill(names, null);
+        Arrays.fill(lowerNames, null);
+    }
+
+    public String getName(int playerId) {
+        return playerId >= 0 && playerId < names.length ? names[playerId] : null;
+    }
+
+    /**
+     * @return lowest id of a player whose name contains value, or -1
+     */
+    public int findFirst(String value, boolean ignoreCase) {
+        String lowerValue = value.toLowerCase(Locale.ROOT);
+        BitSet candidates = getCandidates(lowerValue);
+
+        if (candidates != null) {
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                if (matches(id, value, lowerValue, ignoreCase)) {
+                    return id;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param firstMatches receives the ids of the first matching players in ascending order
+     * @return number of players whose name contains value
+     */
+    public int findAll(String value, boolean ignoreCase, int[] firstMatches) {
+        String lowerValue = value.toLowerCase(Locale.ROOT);
+        BitSet candidates = getCandidates(lowerValue);
+        int count = 0;
+
+        if (candidates != null) {
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                if (matches(id, value, lowerValue, ignoreCase)) {
+                    if (count < firstMatches.length) {
+                        firstMatches[count] = id;
+                    }
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private boolean matches(int id, String value, String lowerValue, boolean ignoreCase) {
+        if (ignoreCase) {
+            return lowerValue.length() <= GRAM_LENGTH || lowerNames[id].contains(lowerValue);
+        } else {
+            return names[id].contains(value);
+        }
+    }
+
+    private BitSet getCandidates(String lowerValue) {
+        if (lowerValue.length() <= GRAM_LENGTH) {
+            return postings.get(lowerValue);
+        }
+
+        BitSet rarest = null;
+        int rarestCount = Integer.MAX_VALUE;
+
+        for (int start = 0; start + GRAM_LENGTH <= lowerValue.length(); start++) {
+            BitSet ids = postings.get(lowerValue.substring(start, start + GRAM_LENGTH));
+
+            if (ids == null) {
+                return null;
+            }
+
+            int count = ids.cardinality();
+
+            if (count < rarestCount) {
+                rarest = ids;
+                rarestCount = count;
+            }
+        }
+
+        return rarest;
+    }
+}
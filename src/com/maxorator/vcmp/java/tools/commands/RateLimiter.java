@@ -0,0 +1,58 @@
+package com.maxorator.vcmp.java.tools.commands;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket per player, kept as one theoretical arrival time per player id. A bucket holds up to the given number
+ * of permits and regains them evenly over the period, so a cooldown is a bucket with a single permit. Not thread
+ * safe, CommandRegistry only uses its limiters while holding one lock.
+ */
+public class RateLimiter {
+
+    private final long interval;
+    private final long tolerance;
+    private long[] readyAt = new long[0];
+
+    /**
+     * @param permits number of uses allowed within the period, which is also the burst size
+     * @param periodMillis period in milliseconds
+     */
+    public RateLimiter(int permits, long periodMillis) {
+        if (permits <= 0 || periodMillis <= 0) {
+            throw new IllegalArgumentException("Rate limit needs a positive number of permits and period.");
+        }
+
+        this.interval = TimeUnit.MILLISECONDS.toNanos(periodMillis) / permits;
+        this.tolerance = interval * (permits - 1);
+    }
+
+    /**
+     * @param now current time in nanoseconds, must never be negative
+     * @return nanoseconds until the player regains a permit, 0 if one is available
+     */
+    public long getDelay(int playerId, long now) {
+        if (playerId >= readyAt.length) {
+            return 0;
+        }
+
+        return Math.max(readyAt[playerId] - tolerance - now, 0);
+    }
+
+    /**
+     * Takes a permit of the player, which must be available according to {@link #getDelay(int, long)}.
+     */
+    public void acquire(int playerId, long now) {
+        if (playerId >= readyAt.length) {
+            readyAt = Arrays.copyOf(readyAt, Math.max(playerId + 1, readyAt.length * 2));
+        }
+
+        readyAt[playerId] = Math.max(readyAt[playerId], now) + interval;
+    }
+
+    public void clear(int playerId) {
+        if (playerId < readyAt.length) {
+            readyAt[playerId] = 0;
+        }
+    }
+}
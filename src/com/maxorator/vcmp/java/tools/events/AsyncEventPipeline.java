@@ -0,0 +1,106 @@
+package com.maxorator.vcmp.java.tools.events;
+
+import com.maxorator.vcmp.java.tools.timers.StripedExecutor;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands events for async subscribers to worker stripes. Deliveries with the same key, the player or other entity the
+ * event concerns, run in the order they were submitted. At most capacity deliveries are queued or running at a time, further ones are
+ * handled according to the backpressure policy.
+ */
+class AsyncEventPipeline {
+
+    private final StripedExecutor workers;
+    private final Semaphore capacity;
+    private final BackpressurePolicy policy;
+    private final AtomicLong dropped;
+
+    AsyncEventPipeline(StripedExecutor workers, int capacity, BackpressurePolicy policy, AtomicLong dropped) {
+        this.workers = workers;
+        this.capacity = new Semaphore(Math.max(capacity, 1));
+        this.policy = policy;
+        this.dropped = dropped;
+    }
+
+    void submit(Object key, Object event, EventListeners.Async[] listeners) {
+        Runnable delivery = () -> {
+            for (EventListeners.Async listener : listeners) {
+                deliver(listener, event);
+            }
+        };
+
+        if (!capacity.tryAcquire()) {
+            switch (policy) {
+                case DROP:
+                    dropped.incrementAndGet();
+                    return;
+                case CALLER_RUNS:
+                    delivery.run();
+                    return;
+                case BLOCK:
+                    capacity.acquireUninterruptibly();
+                    break;
+            }
+        }
+
+        try {
+            workers.execute(key, () -> {
+                try {
+                    delivery.run();
+                } finally {
+                    capacity.release();
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return key ordering the deliveries of events concerning the entity, distinct from the player ids used as keys
+     *         and from the keys of other entity types
+     */
+    static Object entityKey(Class<?> type, int id) {
+        return new EntityKey(type, id);
+    }
+
+    /**
+     * Calls the listener, reporting instead of propagating a failure so that neither the other listeners, the worker
+     * stripe nor the server thread, when delivering with {@link BackpressurePolicy#CALLER_RUNS}, are interrupted by it.
+     */
+    private static void deliver(EventListeners.Async listener, Object event) {
+        try {
+            listener.onEvent(event);
+        } catch (Throwable e) {
+            System.err.println("Async event listener failed: " + e);
+        }
+    }
+
+    private static final class EntityKey {
+        private final Class<?> type;
+        private final int id;
+
+        EntityKey(Class<?> type, int id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof EntityKey)) {
+                return false;
+            }
+
+            EntityKey other = (EntityKey) o;
+            return id == other.id && type == other.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + id;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.maxorator.vcmp.java.tools.events;
+
+import com.maxorator.vcmp.java.plugin.integration.placeable.CheckPoint;
+import com.maxorator.vcmp.java.plugin.integration.placeable.GameObject;
+import com.maxorator.vcmp.java.plugin.integration.placeable.Pickup;
+import com.maxorator.vcmp.java.plugin.integration.player.Player;
+import com.maxorator.vcmp.java.plugin.integration.vehicle.Vehicle;
+
+/**
+ * Immutable copies of the events without a return value, delivered to {@link Subscribe#async()} listeners. They are
+ * taken on the server thread when the event happens: players as a {@link PlayerSnapshot}, other entities by id,
+ * arrays copied. Listeners on worker threads therefore never touch live entities, which read server state and may
+ * already be gone. An entity that was not present is captured as null or id -1.
+ */
+public final class AsyncEvents {
+
+    private AsyncEvents() {
+    }
+
+    public static final class ServerLoadScripts {
+    }
+
+    public static final class ServerUnloadScripts {
+    }
+
+    public static final class ServerShutdown {
+    }
+
+    public static final class ServerFrame {
+    }
+
+    public static final class PluginCommand {
+        public final int identifier;
+        public final String message;
+
+        PluginCommand(int identifier, String message) {
+            this.identifier = identifier;
+            this.message = message;
+        }
+    }
+
+    public static final class ClientScriptData {
+        public final PlayerSnapshot player;
+        public final byte[] data;
+
+        ClientScriptData(Player player, byte[] data) {
+            this.player = PlayerSnapshot.of(player);
+            this.data = data != null ? data.clone() : null;
+        }
+    }
+
+    public static final class PlayerConnect {
+        public final PlayerSnapshot player;
+
+        PlayerConnect(Player player) {
+            this.player = PlayerSnapshot.of(player);
+        }
+    }
+
+    public static final class PlayerDisconnect {
+        public final PlayerSnapshot player;
+        public final int reason;
+
+        PlayerDisconnect(Player player, int reason) {
+            this.player = PlayerSnapshot.of(player);
+            this.reason = reason;
+        }
+    }
+
+    public static final class PlayerSpawn {
+        public final PlayerSnapshot player;
+
+        PlayerSpawn(Player player) {
+            this.player = PlayerSnapshot.of(player);
+        }
+    }
+
+    public static final class PlayerDeath {
+        public final PlayerSnapshot player;
+        public final PlayerSnapshot killer;
+        public final int reason;
+        public final int bodyPart;
+
+        PlayerDeath(Player player, Player killer, int reason, int bodyPart) {
+            this.player = PlayerSnapshot.of(player);
+            this.killer = PlayerSnapshot.of(killer);
+            this.reason = reason;
+            this.bodyPart = bodyPart;
+        }
+    }
+
+    public static final class PlayerUpdate {
+        public final PlayerSnapshot player;
+        public final int updateType;
+
+        PlayerUpdate(Player player, int updateType) {
+            this.player = PlayerSnapshot.of(player);
+            this.updateType = updateType;
+        }
+    }
+
+    public static final class PlayerEnterVehicle {
+        public final PlayerSnapshot player;
+        public final int vehicleId;
+        public final int slot;
+
+        PlayerEnterVehicle(Player player, Vehicle vehicle, int slot) {
+            this.player = PlayerSnapshot.of(player);
+            this.vehicleId = vehicle != null ? vehicle.getId() : -1;
+            this.slot = slot;
+        }
+    }
+
+    public static final class PlayerExitVehicle {
+        public final PlayerSnapshot player;
+        public final int vehicleId;
+
+        PlayerExitVehicle(Player player, Vehicle vehicle) {
+            this.player = PlayerSnapshot.of(player);
+            this.vehicleId = vehicle != null ? vehicle.getId() : -1;
+        }
+    }
+
+    public static final class PlayerNameChange {
+        public final PlayerSnapshot player;
+        public final String oldName;
+        public final String newName;
+
+        PlayerNameChange(Player player, String oldName, String newName) {
+            this.player = PlayerSnapshot.of(player);
+            this.oldName = oldName;
+            this.newName = newName;
+        }
+    }
+
+    public static final class PlayerStateChange {
+        public final PlayerSnapshot player;
+        public final int oldState;
+        public final int newState;
+
+        PlayerStateChange(Player player, int oldState, int newState) {
+            this.player = PlayerSnapshot.of(player);
+            this.oldState = oldState;
+            this.newState = newState;
+        }
+    }
+
+    public static final class PlayerActionChange {
+        public final PlayerSnapshot player;
+        public final int oldAction;
+        public final int newAction;
+
+        PlayerActionChange(Player player, int oldAction, int newAction) {
+            this.player = PlayerSnapshot.of(player);
+            this.oldAction = oldAction;
+            this.newAction = newAction;
+        }
+    }
+
+    public static final class PlayerOnFireChange {
+        public final PlayerSnapshot player;
+        public final boolean isOnFire;
+
+        PlayerOnFireChange(Player player, boolean isOnFire) {
+            this.player = PlayerSnapshot.of(player);
+            this.isOnFire = isOnFire;
+        }
+    }
+
+    public static final class PlayerCrouchChange {
+        public final PlayerSnapshot player;
+        public final boolean isCrouching;
+
+        PlayerCrouchChange(Player player, boolean isCrouching) {
+            this.player = PlayerSnapshot.of(player);
+            this.isCrouching = isCrouching;
+        }
+    }
+
+    public static final class PlayerGameKeysChange {
+        public final PlayerSnapshot player;
+        public final int oldKeys;
+        public final int newKeys;
+
+        PlayerGameKeysChange(Player player, int oldKeys, int newKeys) {
+            this.player = PlayerSnapshot.of(player);
+            this.oldKeys = oldKeys;
+            this.newKeys = newKeys;
+        }
+    }
+
+    public static final class PlayerBeginTyping {
+        public final PlayerSnapshot player;
+
+        PlayerBeginTyping(Player player) {
+            this.player = PlayerSnapshot.of(player);
+        }
+    }
+
+    public static final class PlayerEndTyping {
+        public final PlayerSnapshot player;
+
+        PlayerEndTyping(Player player) {
+            this.player = PlayerSnapshot.of(player);
+        }
+    }
+
+    public static final class PlayerAwayChange {
+        public final PlayerSnapshot player;
+        public final boolean isAway;
+
+        PlayerAwayChange(Player player, boolean isAway) {
+            this.player = PlayerSnapshot.of(player);
+            this.isAway = isAway;
+        }
+    }
+
+    public static final class PlayerKeyBindDown {
+        public final PlayerSnapshot player;
+        public final int keyBindIndex;
+
+        PlayerKeyBindDown(Player player, int keyBindIndex) {
+            this.player = PlayerSnapshot.of(player);
+            this.keyBindIndex = keyBindIndex;
+        }
+    }
+
+    public static final class PlayerKeyBindUp {
+        public final PlayerSnapshot player;
+        public final int keyBindIndex;
+
+        PlayerKeyBindUp(Player player, int keyBindIndex) {
+            this.player = PlayerSnapshot.of(player);
+            this.keyBindIndex = keyBindIndex;
+        }
+    }
+
+    public static final class PlayerSpectate {
+        public final PlayerSnapshot player;
+        public final PlayerSnapshot spectated;
+
+        PlayerSpectate(Player player, Player spectated) {
+            this.player = PlayerSnapshot.of(player);
+            this.spectated = PlayerSnapshot.of(spectated);
+        }
+    }
+
+    public static final class VehicleUpdate {
+        public final int vehicleId;
+        public final int updateType;
+
+        VehicleUpdate(Vehicle vehicle, int updateType) {
+            this.vehicleId = vehicle != null ? vehicle.getId() : -1;
+            this.updateType = updateType;
+        }
+    }
+
+    public static final class VehicleExplode {
+        public final int vehicleId;
+
+        VehicleExplode(Vehicle vehicle) {
+            this.vehicleId = vehicle != null ? vehicle.getId() : -1;
+        }
+    }
+
+    public static final class VehicleRespawn {
+        public final int vehicleId;
+
+        VehicleRespawn(Vehicle vehicle) {
+            this.vehicleId = vehicle != null ? vehicle.getId() : -1;
+        }
+    }
+
+    public static final class ObjectShot {
+        public final int objectId;
+        public final PlayerSnapshot player;
+        public final int weaponId;
+
+        ObjectShot(GameObject object, Player player, int weaponId) {
+            this.objectId = object != null ? object.getId() : -1;
+            this.player = PlayerSnapshot.of(player);
+            this.weaponId = weaponId;
+        }
+    }
+
+    public static final class ObjectTouched {
+        public final int objectId;
+        public final PlayerSnapshot player;
+
+        ObjectTouched(GameObject object, Player player) {
+            this.objectId = object != null ? object.getId() : -1;
+            this.player = PlayerSnapshot.of(player);
+        }
+    }
+
+    public static final class PickupPicked {
+        public final int pickupId;
+        public final PlayerSnapshot player;
+
+        PickupPicked(Pickup pickup, Player player) {
+            this.pickupId = pickup != null ? pickup.getId() : -1;
+            this.player = PlayerSnapshot.of(player);
+        }
+    }
+
+    public static final class PickupRespawn {
+        public final int pickupId;
+
+        PickupRespawn(Pickup pickup) {
+            this.pickupId = pickup != null ? pickup.getId() : -1;
+        }
+    }
+
+    public static final class CheckPointEntered {
+        public final int checkPointId;
+        public final PlayerSnapshot player;
+
+        CheckPointEntered(CheckPoint checkPoint, Player player) {
+            this.checkPointId = checkPoint != null ? checkPoint.getId() : -1;
+            this.player = PlayerSnapshot.of(player);
+        }
+    }
+
+    public static final class CheckPointExited {
+        public final int checkPointId;
+        public final PlayerSnapshot player;
+
+        CheckPointExited(CheckPoint checkPoint, Player player) {
+            this.checkPointId = checkPoint != null ? checkPoint.getId() : -1;
+            this.player = PlayerSnapshot.of(player);
+        }
+    }
+
+    public static final class PlayerCrashReport {
+        public final PlayerSnapshot player;
+        public final String crashLog;
+
+        PlayerCrashReport(Player player, String crashLog) {
+            this.player = PlayerSnapshot.of(player);
+            this.crashLog = crashLog;
+        }
+    }
+
+    public static final class PlayerModuleList {
+        public final PlayerSnapshot player;
+        public final String list;
+
+        PlayerModuleList(Player player, String list) {
+            this.player = PlayerSnapshot.of(player);
+            this.list = list;
+        }
+    }
+
+    public static final class ServerPerformanceReport {
+        public final int entry;
+        public final String[] descriptions;
+        public final long[] times;
+
+        ServerPerformanceReport(int entry, String[] descriptions, long[] times) {
+            this.entry = entry;
+            this.descriptions = descriptions != null ? descriptions.clone() : null;
+            this.times = times != null ? times.clone() : null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.maxorator.vcmp.java.tools.events;
+
+/**
+ * What the server thread does with an event for async subscribers while the maximum number of events are already
+ * waiting for the workers.
+ */
+public enum BackpressurePolicy {
+    /**
+     * Drops the event for the async subscribers and counts it in {@link DelegatingEventHandler#getDroppedAsyncEvents()}.
+     */
+    DROP,
+
+    /**
+     * Delivers the event to the async subscribers on the server thread. It may then overtake events of the same player
+     * that are still queued.
+     */
+    CALLER_RUNS,
+
+    /**
+     * Blocks the server thread until a queued event has been delivered.
+     */
+    BLOCK
+}
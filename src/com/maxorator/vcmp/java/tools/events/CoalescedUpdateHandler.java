@@ -0,0 +1,20 @@
+package com.maxorator.vcmp.java.tools.events;
+
+import com.maxorator.vcmp.java.plugin.integration.player.Player;
+import com.maxorator.vcmp.java.plugin.integration.vehicle.Vehicle;
+
+/**
+ * Receives player and vehicle updates at most once per entity and server frame instead of for every update packet.
+ * Objects implementing this and passed to {@link DelegatingEventHandler#add(Object)} are called from onServerFrame for
+ * every entity that was updated since the previous frame, before the onServerFrame listeners run. The updateTypes
+ * argument has the bit (1 &lt;&lt; updateType) set for each update type received, the current state is read from the
+ * entity itself. Pending updates are discarded when a player disconnects or a vehicle explodes or respawns.
+ */
+public interface CoalescedUpdateHandler {
+
+    default void onPlayerUpdates(Player player, int updateTypes) {
+    }
+
+    default void onVehicleUpdates(Vehicle vehicle, int updateTypes) {
+    }
+}
@@ -1,6 +1,5 @@
 package com.maxorator.vcmp.java.tools.events;
 
-import com.maxorator.vcmp.java.plugin.integration.EventHandler;
 import com.maxorator.vcmp.java.plugin.integration.RootEventHandler;
 import com.maxorator.vcmp.java.plugin.integration.placeable.CheckPoint;
 import com.maxorator.vcmp.java.plugin.integration.placeable.GameObject;
@@ -10,17 +9,47 @@ import com.maxorator.vcmp.java.plugin.integration.server.Server;
 import com.maxorator.vcmp.java.plugin.integration.vehicle.Vehicle;
 import com.maxorator.vcmp.java.tools.commands.CommandController;
 import com.maxorator.vcmp.java.tools.commands.CommandRegistry;
+import com.maxorator.vcmp.java.tools.events.EventSubscriptions.Dispatch;
+import com.maxorator.vcmp.java.tools.events.EventSubscriptions.Subscription;
+import com.maxorator.vcmp.java.tools.timers.StripedExecutor;
 import com.maxorator.vcmp.java.tools.timers.TimerRegistry;
-
-import java.lang.reflect.Method;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.Map;
-
+import com.maxorator.vcmp.java.tools.timers.WorkerThreads;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Forwards events to the added handlers and subscribers. Each event has its own array of listeners, generated for the
+ * methods that actually handle it: event methods an EventHandler overrides and methods annotated with
+ * {@link Subscribe}. Handlers that inherit the empty implementation from RootEventHandler are never called for an
+ * event, and events nothing listens to are not requested from the server at all. Listeners are called in order of
+ * descending {@link Subscribe#priority()}, the most recently added first among equal priorities.
+ * <p>
+ * Handlers can be added and removed at any time, also from inside an event. Changes replace the dispatch arrays as a
+ * whole, so an event that is already being dispatched finishes with the listeners it started with. After takeOver() the
+ * events requested from the server are updated to match on the next server frame.
+ * <p>
+ * Handlers that only need the latest player or vehicle state can implement {@link CoalescedUpdateHandler} to be
+ * called once per updated entity and frame instead of on every update.
+ * <p>
+ * Slow listeners of events without a return value, such as logging or statistics, can be marked
+ * {@link Subscribe#async()} to receive an immutable {@link AsyncEvents} copy of the event on a worker thread, in order
+ * for each player, vehicle or pickup.
+ */
 public class DelegatingEventHandler extends RootEventHandler {
 
-    private final Deque<EventHandler> delegates;
+    private final List<Subscription> subscriptions;
+    private volatile Dispatch dispatch;
+    private volatile CoalescedUpdateHandler[] coalescedHandlers;
+    private final UpdateCoalescer<Player> playerUpdates;
+    private final UpdateCoalescer<Vehicle> vehicleUpdates;
+    private volatile AsyncEventPipeline asyncEvents;
+    private final AtomicLong droppedAsyncEvents;
+    private volatile boolean takenOver;
+    private long wiredEventFlags;
     public final TimerRegistry timers;
     public final CommandRegistry commands;
 
@@ -28,13 +57,37 @@ public class DelegatingEventHandler extends RootEventHandler {
         super(server);
 
         timers = new TimerRegistry();
-        commands = new CommandRegistry(server);
-        delegates = new ArrayDeque<>();
-    }
-
+        commands = new CommandRegistry(server, timers);
+        subscriptions = new ArrayList<>();
+        dispatch = EventSubscriptions.build(subscriptions);
+        coalescedHandlers = new CoalescedUpdateHandler[0];
+        playerUpdates = new UpdateCoalescer<>();
+        vehicleUpdates = new UpdateCoalescer<>();
+        droppedAsyncEvents = new AtomicLong();
+    }
+
+    /**
+     * Adds an EventHandler, an object with {@link Subscribe} methods, a CoalescedUpdateHandler, a CommandController,
+     * or an object that is several of these.
+     */
     public void add(Object eventOrCommandHandler) {
-        if (eventOrCommandHandler instanceof EventHandler) {
-            delegates.addFirst((EventHandler) eventOrCommandHandler);
+        List<Subscription> added = EventSubscriptions.collect(eventOrCommandHandler);
+        boolean coalesced = eventOrCommandHandler instanceof CoalescedUpdateHandler;
+
+        if (!added.isEmpty() || coalesced) {
+            synchronized (subscriptions) {
+                subscriptions.addAll(0, added);
+                dispatch = EventSubscriptions.build(subscriptions);
+
+                if (coalesced) {
+                    CoalescedUpdateHandler[] handlers = new CoalescedUpdateHandler[coalescedHandlers.length + 1];
+                    handlers[0] = (CoalescedUpdateHandler) eventOrCommandHandler;
+                    System.arraycopy(coalescedHandlers, 0, handlers, 1, coalescedHandlers.length);
+                    coalescedHandlers = handlers;
+                }
+            }
+
+            scheduleRewire();
         }
 
         if (eventOrCommandHandler instanceof CommandController) {
@@ -42,45 +95,173 @@ public class DelegatingEventHandler extends RootEventHandler {
         }
     }
 
-    private long calculateUsedEventFlags() {
-        long flags = 0;
-        Map<String, Long> eventIndex = new HashMap<>();
+    /**
+     * Stops delivering events to the handler or subscriber and cancels the timers registered through
+     * timers.scope(handler). Commands it registered stay registered.
+     *
+     * @return whether the handler had been added
+     */
+    public boolean remove(Object eventHandler) {
+        boolean removed;
+
+        synchronized (subscriptions) {
+            removed = subscriptions.removeIf(subscription -> subscription.owner == eventHandler);
+
+            if (removed) {
+                dispatch = EventSubscriptions.build(subscriptions);
+            }
+
+            if (eventHandler instanceof CoalescedUpdateHandler) {
+                List<CoalescedUpdateHandler> handlers = new ArrayList<>(Arrays.asList(coalescedHandlers));
+
+                if (handlers.remove(eventHandler)) {
+                    coalescedHandlers = handlers.toArray(new CoalescedUpdateHandler[0]);
+                    removed = true;
+                }
+            }
+        }
 
-        EventMethodName[] values = EventMethodName.values();
-        for (int i = 0; i < values.length; i++) {
-            eventIndex.put(values[i].name(), (long) i);
+        if (removed) {
+            timers.cancelAll(eventHandler);
+            scheduleRewire();
         }
 
-        for (EventHandler eventHandler : delegates) {
-            for (Method method : eventHandler.getClass().getDeclaredMethods()) {
-                Long index = eventIndex.get(method.getName());
-                if (index != null) {
-                    flags |= 1L << index;
+        return removed;
+    }
+
+    private void scheduleRewire() {
+        if (takenOver) {
+            timers.execute(this::rewireEvents);
+        }
+    }
+
+    private void rewireEvents() {
+        long flags = calculateUsedEventFlags();
+
+        if (flags != wiredEventFlags) {
+            wiredEventFlags = flags;
+            server.rewireEvents(this, flags);
+        }
+    }
+
+    /**
+     * Sets where listeners annotated with {@link Subscribe#async()} run. By default they run on as many worker threads
+     * as there are processors, with up to 65536 events queued and further events dropped.
+     *
+     * @param executor executor the workers run on
+     * @param stripeCount maximum number of events delivered at the same time
+     * @param capacity maximum number of events queued or being delivered
+     * @param policy what happens to events beyond the capacity
+     */
+    public synchronized void setAsyncEvents(Executor executor, int stripeCount, int capacity, BackpressurePolicy policy) {
+        asyncEvents = new AsyncEventPipeline(new StripedExecutor(executor, stripeCount), capacity, policy, droppedAsyncEvents);
+    }
+
+    /**
+     * @return number of events async listeners did not receive because of {@link BackpressurePolicy#DROP}
+     */
+    public long getDroppedAsyncEvents() {
+        return droppedAsyncEvents.get();
+    }
+
+    private AsyncEventPipeline asyncEvents() {
+        AsyncEventPipeline pipeline = asyncEvents;
+
+        if (pipeline == null) {
+            synchronized (this) {
+                if (asyncEvents == null) {
+                    int parallelism = Runtime.getRuntime().availableProcessors();
+                    StripedExecutor workers = new StripedExecutor(WorkerThreads.newExecutor("event-worker", parallelism), parallelism);
+                    asyncEvents = new AsyncEventPipeline(workers, 65536, BackpressurePolicy.DROP, droppedAsyncEvents);
                 }
+
+                pipeline = asyncEvents;
+            }
+        }
+
+        return pipeline;
+    }
+
+    private Object[] listeners(EventMethodName event) {
+        return dispatch.listeners[event.ordinal()];
+    }
+
+    private EventListeners.Async[] asyncListeners(EventMethodName event) {
+        return (EventListeners.Async[]) dispatch.asyncListeners[event.ordinal()];
+    }
+
+    private long calculateUsedEventFlags() {
+        Dispatch dispatch = this.dispatch;
+        long flags = 0;
+
+        for (int event = 0; event < EventSubscriptions.EVENTS.length; event++) {
+            if (dispatch.listeners[event].length > 0 || dispatch.asyncListeners[event].length > 0) {
+                flags |= 1L << event;
             }
         }
 
-        flags |= (1 << EventMethodName.onServerFrame.ordinal());
-        flags |= (1 << EventMethodName.onPlayerCommand.ordinal());
+        if (coalescedHandlers.length > 0) {
+            flags |= 1L << EventMethodName.onPlayerUpdate.ordinal();
+            flags |= 1L << EventMethodName.onVehicleUpdate.ordinal();
+        }
+
+        flags |= 1L << EventMethodName.onServerFrame.ordinal();
+        flags |= 1L << EventMethodName.onPlayerCommand.ordinal();
+        flags |= 1L << EventMethodName.onPlayerConnect.ordinal();
+        flags |= 1L << EventMethodName.onPlayerDisconnect.ordinal();
+        flags |= 1L << EventMethodName.onPlayerNameChange.ordinal();
 
         return flags;
     }
 
+    private void flushUpdates() {
+        playerUpdates.flush(this::deliverPlayerUpdates);
+        vehicleUpdates.flush(this::deliverVehicleUpdates);
+    }
+
+    private void deliverPlayerUpdates(Player player, int updateTypes) {
+        for (CoalescedUpdateHandler handler : coalescedHandlers) {
+            handler.onPlayerUpdates(player, updateTypes);
+        }
+    }
+
+    private void deliverVehicleUpdates(Vehicle vehicle, int updateTypes) {
+        for (CoalescedUpdateHandler handler : coalescedHandlers) {
+            handler.onVehicleUpdates(vehicle, updateTypes);
+        }
+    }
+
     public void takeOver() {
-        server.rewireEvents(this, calculateUsedEventFlags());
+        commands.enablePlayerIndex();
+
+        takenOver = true;
+        wiredEventFlags = calculateUsedEventFlags();
+        server.rewireEvents(this, wiredEventFlags);
     }
 
     @Override
     public void onServerLoadScripts() {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onServerLoadScripts();
+        for (EventListeners.ServerLoadScripts listener : (EventListeners.ServerLoadScripts[]) listeners(EventMethodName.onServerLoadScripts)) {
+            listener.onServerLoadScripts();
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onServerLoadScripts);
+
+        if (async.length > 0) {
+            asyncEvents().submit(EventMethodName.onServerLoadScripts, new AsyncEvents.ServerLoadScripts(), async);
         }
     }
 
     @Override
     public void onServerUnloadScripts() {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onServerUnloadScripts();
+        for (EventListeners.ServerUnloadScripts listener : (EventListeners.ServerUnloadScripts[]) listeners(EventMethodName.onServerUnloadScripts)) {
+            listener.onServerUnloadScripts();
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onServerUnloadScripts);
+
+        if (async.length > 0) {
+            asyncEvents().submit(EventMethodName.onServerUnloadScripts, new AsyncEvents.ServerUnloadScripts(), async);
         }
     }
 
@@ -88,8 +269,8 @@ public class DelegatingEventHandler extends RootEventHandler {
     public boolean onServerInitialise() {
         boolean success = true;
 
-        for (EventHandler eventHandler : delegates) {
-            if (!eventHandler.onServerInitialise()) {
+        for (EventListeners.ServerInitialise listener : (EventListeners.ServerInitialise[]) listeners(EventMethodName.onServerInitialise)) {
+            if (!listener.onServerInitialise()) {
                 success = false;
             }
         }
@@ -99,34 +280,58 @@ public class DelegatingEventHandler extends RootEventHandler {
 
     @Override
     public void onServerShutdown() {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onServerShutdown();
+        for (EventListeners.ServerShutdown listener : (EventListeners.ServerShutdown[]) listeners(EventMethodName.onServerShutdown)) {
+            listener.onServerShutdown();
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onServerShutdown);
+
+        if (async.length > 0) {
+            asyncEvents().submit(EventMethodName.onServerShutdown, new AsyncEvents.ServerShutdown(), async);
         }
     }
 
     @Override
     public void onServerFrame() {
         timers.process();
+        flushUpdates();
 
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onServerFrame();
+        for (EventListeners.ServerFrame listener : (EventListeners.ServerFrame[]) listeners(EventMethodName.onServerFrame)) {
+            listener.onServerFrame();
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onServerFrame);
+
+        if (async.length > 0) {
+            asyncEvents().submit(EventMethodName.onServerFrame, new AsyncEvents.ServerFrame(), async);
         }
     }
 
     @Override
     public void onPluginCommand(int identifier, String message) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPluginCommand(identifier, message);
+        for (EventListeners.PluginCommand listener : (EventListeners.PluginCommand[]) listeners(EventMethodName.onPluginCommand)) {
+            listener.onPluginCommand(identifier, message);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPluginCommand);
+
+        if (async.length > 0) {
+            asyncEvents().submit(EventMethodName.onPluginCommand, new AsyncEvents.PluginCommand(identifier, message), async);
         }
     }
 
     @Override
     public String onIncomingConnection(String name, String password, String ip) {
+        Dispatch current = dispatch;
+        EventListeners.IncomingConnection[] listeners = (EventListeners.IncomingConnection[]) current.listeners[EventMethodName.onIncomingConnection.ordinal()];
+        boolean[] receiveCancelled = current.receiveCancelled[EventMethodName.onIncomingConnection.ordinal()];
         String last = name;
 
-        for (EventHandler eventHandler : delegates) {
+        for (int i = 0; i < listeners.length; i++) {
             if (last != null) {
-                last = eventHandler.onIncomingConnection(last, password, ip);
+                last = listeners[i].onIncomingConnection(last, password, ip);
+            } else if (receiveCancelled[i]) {
+                listeners[i].onIncomingConnection(name, password, ip);
             }
         }
 
@@ -135,22 +340,46 @@ public class DelegatingEventHandler extends RootEventHandler {
 
     @Override
     public void onClientScriptData(Player player, byte[] data) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onClientScriptData(player, data);
+        for (EventListeners.ClientScriptData listener : (EventListeners.ClientScriptData[]) listeners(EventMethodName.onClientScriptData)) {
+            listener.onClientScriptData(player, data);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onClientScriptData);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.ClientScriptData(player, data), async);
         }
     }
 
     @Override
     public void onPlayerConnect(Player player) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerConnect(player);
+        commands.onPlayerConnect(player);
+
+        for (EventListeners.PlayerConnect listener : (EventListeners.PlayerConnect[]) listeners(EventMethodName.onPlayerConnect)) {
+            listener.onPlayerConnect(player);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerConnect);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerConnect(player), async);
         }
     }
 
     @Override
     public void onPlayerDisconnect(Player player, int reason) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerDisconnect(player, reason);
+        for (EventListeners.PlayerDisconnect listener : (EventListeners.PlayerDisconnect[]) listeners(EventMethodName.onPlayerDisconnect)) {
+            listener.onPlayerDisconnect(player, reason);
+        }
+
+        commands.onPlayerDisconnect(player);
+        timers.cancelAll(player);
+        playerUpdates.clear(player.getId());
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerDisconnect);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerDisconnect(player, reason), async);
         }
     }
 
@@ -158,8 +387,8 @@ public class DelegatingEventHandler extends RootEventHandler {
     public boolean onPlayerRequestClass(Player player, int classIndex) {
         boolean success = true;
 
-        for (EventHandler eventHandler : delegates) {
-            if (!eventHandler.onPlayerRequestClass(player, classIndex)) {
+        for (EventListeners.PlayerRequestClass listener : (EventListeners.PlayerRequestClass[]) listeners(EventMethodName.onPlayerRequestClass)) {
+            if (!listener.onPlayerRequestClass(player, classIndex)) {
                 success = false;
             }
         }
@@ -171,8 +400,8 @@ public class DelegatingEventHandler extends RootEventHandler {
     public boolean onPlayerRequestSpawn(Player player) {
         boolean success = true;
 
-        for (EventHandler eventHandler : delegates) {
-            if (!eventHandler.onPlayerRequestSpawn(player)) {
+        for (EventListeners.PlayerRequestSpawn listener : (EventListeners.PlayerRequestSpawn[]) listeners(EventMethodName.onPlayerRequestSpawn)) {
+            if (!listener.onPlayerRequestSpawn(player)) {
                 success = false;
             }
         }
@@ -182,22 +411,44 @@ public class DelegatingEventHandler extends RootEventHandler {
 
     @Override
     public void onPlayerSpawn(Player player) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerSpawn(player);
+        for (EventListeners.PlayerSpawn listener : (EventListeners.PlayerSpawn[]) listeners(EventMethodName.onPlayerSpawn)) {
+            listener.onPlayerSpawn(player);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerSpawn);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerSpawn(player), async);
         }
     }
 
     @Override
     public void onPlayerDeath(Player player, Player killer, int reason, int bodyPart) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerDeath(player, killer, reason, bodyPart);
+        for (EventListeners.PlayerDeath listener : (EventListeners.PlayerDeath[]) listeners(EventMethodName.onPlayerDeath)) {
+            listener.onPlayerDeath(player, killer, reason, bodyPart);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerDeath);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerDeath(player, killer, reason, bodyPart), async);
         }
     }
 
     @Override
     public void onPlayerUpdate(Player player, int updateType) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerUpdate(player, updateType);
+        if (coalescedHandlers.length > 0) {
+            playerUpdates.mark(player.getId(), player, updateType);
+        }
+
+        for (EventListeners.PlayerUpdate listener : (EventListeners.PlayerUpdate[]) listeners(EventMethodName.onPlayerUpdate)) {
+            listener.onPlayerUpdate(player, updateType);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerUpdate);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerUpdate(player, updateType), async);
         }
     }
 
@@ -205,8 +456,8 @@ public class DelegatingEventHandler extends RootEventHandler {
     public boolean onPlayerRequestEnterVehicle(Player player, Vehicle vehicle, int slot) {
         boolean success = true;
 
-        for (EventHandler eventHandler : delegates) {
-            if (!eventHandler.onPlayerRequestEnterVehicle(player, vehicle, slot)) {
+        for (EventListeners.PlayerRequestEnterVehicle listener : (EventListeners.PlayerRequestEnterVehicle[]) listeners(EventMethodName.onPlayerRequestEnterVehicle)) {
+            if (!listener.onPlayerRequestEnterVehicle(player, vehicle, slot)) {
                 success = false;
             }
         }
@@ -216,90 +467,165 @@ public class DelegatingEventHandler extends RootEventHandler {
 
     @Override
     public void onPlayerEnterVehicle(Player player, Vehicle vehicle, int slot) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerEnterVehicle(player, vehicle, slot);
+        for (EventListeners.PlayerEnterVehicle listener : (EventListeners.PlayerEnterVehicle[]) listeners(EventMethodName.onPlayerEnterVehicle)) {
+            listener.onPlayerEnterVehicle(player, vehicle, slot);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerEnterVehicle);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerEnterVehicle(player, vehicle, slot), async);
         }
     }
 
     @Override
     public void onPlayerExitVehicle(Player player, Vehicle vehicle) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerExitVehicle(player, vehicle);
+        for (EventListeners.PlayerExitVehicle listener : (EventListeners.PlayerExitVehicle[]) listeners(EventMethodName.onPlayerExitVehicle)) {
+            listener.onPlayerExitVehicle(player, vehicle);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerExitVehicle);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerExitVehicle(player, vehicle), async);
         }
     }
 
     @Override
     public void onPlayerNameChange(Player player, String oldName, String newName) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerNameChange(player, oldName, newName);
+        commands.onPlayerNameChange(player, newName);
+
+        for (EventListeners.PlayerNameChange listener : (EventListeners.PlayerNameChange[]) listeners(EventMethodName.onPlayerNameChange)) {
+            listener.onPlayerNameChange(player, oldName, newName);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerNameChange);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerNameChange(player, oldName, newName), async);
         }
     }
 
     @Override
     public void onPlayerStateChange(Player player, int oldState, int newState) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerStateChange(player, oldState, newState);
+        for (EventListeners.PlayerStateChange listener : (EventListeners.PlayerStateChange[]) listeners(EventMethodName.onPlayerStateChange)) {
+            listener.onPlayerStateChange(player, oldState, newState);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerStateChange);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerStateChange(player, oldState, newState), async);
         }
     }
 
     @Override
     public void onPlayerActionChange(Player player, int oldAction, int newAction) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerActionChange(player, oldAction, newAction);
+        for (EventListeners.PlayerActionChange listener : (EventListeners.PlayerActionChange[]) listeners(EventMethodName.onPlayerActionChange)) {
+            listener.onPlayerActionChange(player, oldAction, newAction);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerActionChange);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerActionChange(player, oldAction, newAction), async);
         }
     }
 
     @Override
     public void onPlayerOnFireChange(Player player, boolean isOnFire) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerOnFireChange(player, isOnFire);
+        for (EventListeners.PlayerOnFireChange listener : (EventListeners.PlayerOnFireChange[]) listeners(EventMethodName.onPlayerOnFireChange)) {
+            listener.onPlayerOnFireChange(player, isOnFire);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerOnFireChange);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerOnFireChange(player, isOnFire), async);
         }
     }
 
     @Override
     public void onPlayerCrouchChange(Player player, boolean isCrouching) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerCrouchChange(player, isCrouching);
+        for (EventListeners.PlayerCrouchChange listener : (EventListeners.PlayerCrouchChange[]) listeners(EventMethodName.onPlayerCrouchChange)) {
+            listener.onPlayerCrouchChange(player, isCrouching);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerCrouchChange);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerCrouchChange(player, isCrouching), async);
         }
     }
 
     @Override
     public void onPlayerGameKeysChange(Player player, int oldKeys, int newKeys) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerGameKeysChange(player, oldKeys, newKeys);
+        for (EventListeners.PlayerGameKeysChange listener : (EventListeners.PlayerGameKeysChange[]) listeners(EventMethodName.onPlayerGameKeysChange)) {
+            listener.onPlayerGameKeysChange(player, oldKeys, newKeys);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerGameKeysChange);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerGameKeysChange(player, oldKeys, newKeys), async);
         }
     }
 
     @Override
     public void onPlayerBeginTyping(Player player) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerBeginTyping(player);
+        for (EventListeners.PlayerBeginTyping listener : (EventListeners.PlayerBeginTyping[]) listeners(EventMethodName.onPlayerBeginTyping)) {
+            listener.onPlayerBeginTyping(player);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerBeginTyping);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerBeginTyping(player), async);
         }
     }
 
     @Override
     public void onPlayerEndTyping(Player player) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerEndTyping(player);
+        for (EventListeners.PlayerEndTyping listener : (EventListeners.PlayerEndTyping[]) listeners(EventMethodName.onPlayerEndTyping)) {
+            listener.onPlayerEndTyping(player);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerEndTyping);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerEndTyping(player), async);
         }
     }
 
     @Override
     public void onPlayerAwayChange(Player player, boolean isAway) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerAwayChange(player, isAway);
+        for (EventListeners.PlayerAwayChange listener : (EventListeners.PlayerAwayChange[]) listeners(EventMethodName.onPlayerAwayChange)) {
+            listener.onPlayerAwayChange(player, isAway);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerAwayChange);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerAwayChange(player, isAway), async);
         }
     }
 
     @Override
     public boolean onPlayerMessage(Player player, String message) {
-        for (EventHandler eventHandler : delegates) {
-            if (!eventHandler.onPlayerMessage(player, message)) {
-                return false;
+        Dispatch current = dispatch;
+        EventListeners.PlayerMessage[] listeners = (EventListeners.PlayerMessage[]) current.listeners[EventMethodName.onPlayerMessage.ordinal()];
+        boolean[] receiveCancelled = current.receiveCancelled[EventMethodName.onPlayerMessage.ordinal()];
+        boolean allowed = true;
+
+        for (int i = 0; i < listeners.length; i++) {
+            if (allowed) {
+                allowed = listeners[i].onPlayerMessage(player, message);
+            } else if (receiveCancelled[i]) {
+                listeners[i].onPlayerMessage(player, message);
             }
         }
 
-        return true;
+        return allowed;
     }
 
     @Override
@@ -308,139 +634,258 @@ public class DelegatingEventHandler extends RootEventHandler {
             return true;
         }
 
-        for (EventHandler eventHandler : delegates) {
-            if (eventHandler.onPlayerCommand(player, message)) {
-                return true;
+        Dispatch current = dispatch;
+        EventListeners.PlayerCommand[] listeners = (EventListeners.PlayerCommand[]) current.listeners[EventMethodName.onPlayerCommand.ordinal()];
+        boolean[] receiveCancelled = current.receiveCancelled[EventMethodName.onPlayerCommand.ordinal()];
+        boolean handled = false;
+
+        for (int i = 0; i < listeners.length; i++) {
+            if (!handled) {
+                handled = listeners[i].onPlayerCommand(player, message);
+            } else if (receiveCancelled[i]) {
+                listeners[i].onPlayerCommand(player, message);
             }
         }
 
-        return false;
+        return handled;
     }
 
     @Override
     public boolean onPlayerPrivateMessage(Player player, Player recipient, String message) {
-        for (EventHandler eventHandler : delegates) {
-            if (!eventHandler.onPlayerPrivateMessage(player, recipient, message)) {
-                return false;
+        Dispatch current = dispatch;
+        EventListeners.PlayerPrivateMessage[] listeners = (EventListeners.PlayerPrivateMessage[]) current.listeners[EventMethodName.onPlayerPrivateMessage.ordinal()];
+        boolean[] receiveCancelled = current.receiveCancelled[EventMethodName.onPlayerPrivateMessage.ordinal()];
+        boolean allowed = true;
+
+        for (int i = 0; i < listeners.length; i++) {
+            if (allowed) {
+                allowed = listeners[i].onPlayerPrivateMessage(player, recipient, message);
+            } else if (receiveCancelled[i]) {
+                listeners[i].onPlayerPrivateMessage(player, recipient, message);
             }
         }
 
-        return true;
+        return allowed;
     }
 
     @Override
     public void onPlayerKeyBindDown(Player player, int keyBindIndex) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerKeyBindDown(player, keyBindIndex);
+        for (EventListeners.PlayerKeyBindDown listener : (EventListeners.PlayerKeyBindDown[]) listeners(EventMethodName.onPlayerKeyBindDown)) {
+            listener.onPlayerKeyBindDown(player, keyBindIndex);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerKeyBindDown);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerKeyBindDown(player, keyBindIndex), async);
         }
     }
 
     @Override
     public void onPlayerKeyBindUp(Player player, int keyBindIndex) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerKeyBindUp(player, keyBindIndex);
+        for (EventListeners.PlayerKeyBindUp listener : (EventListeners.PlayerKeyBindUp[]) listeners(EventMethodName.onPlayerKeyBindUp)) {
+            listener.onPlayerKeyBindUp(player, keyBindIndex);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerKeyBindUp);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerKeyBindUp(player, keyBindIndex), async);
         }
     }
 
     @Override
     public void onPlayerSpectate(Player player, Player spectated) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerSpectate(player, spectated);
+        for (EventListeners.PlayerSpectate listener : (EventListeners.PlayerSpectate[]) listeners(EventMethodName.onPlayerSpectate)) {
+            listener.onPlayerSpectate(player, spectated);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerSpectate);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerSpectate(player, spectated), async);
         }
     }
 
     @Override
     public void onVehicleUpdate(Vehicle vehicle, int updateType) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onVehicleUpdate(vehicle, updateType);
+        if (coalescedHandlers.length > 0) {
+            vehicleUpdates.mark(vehicle.getId(), vehicle, updateType);
+        }
+
+        for (EventListeners.VehicleUpdate listener : (EventListeners.VehicleUpdate[]) listeners(EventMethodName.onVehicleUpdate)) {
+            listener.onVehicleUpdate(vehicle, updateType);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onVehicleUpdate);
+
+        if (async.length > 0) {
+            asyncEvents().submit(AsyncEventPipeline.entityKey(Vehicle.class, vehicle.getId()), new AsyncEvents.VehicleUpdate(vehicle, updateType), async);
         }
     }
 
     @Override
     public void onVehicleExplode(Vehicle vehicle) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onVehicleExplode(vehicle);
+        vehicleUpdates.clear(vehicle.getId());
+
+        for (EventListeners.VehicleExplode listener : (EventListeners.VehicleExplode[]) listeners(EventMethodName.onVehicleExplode)) {
+            listener.onVehicleExplode(vehicle);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onVehicleExplode);
+
+        if (async.length > 0) {
+            asyncEvents().submit(AsyncEventPipeline.entityKey(Vehicle.class, vehicle.getId()), new AsyncEvents.VehicleExplode(vehicle), async);
         }
     }
 
     @Override
     public void onVehicleRespawn(Vehicle vehicle) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onVehicleRespawn(vehicle);
+        vehicleUpdates.clear(vehicle.getId());
+
+        for (EventListeners.VehicleRespawn listener : (EventListeners.VehicleRespawn[]) listeners(EventMethodName.onVehicleRespawn)) {
+            listener.onVehicleRespawn(vehicle);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onVehicleRespawn);
+
+        if (async.length > 0) {
+            asyncEvents().submit(AsyncEventPipeline.entityKey(Vehicle.class, vehicle.getId()), new AsyncEvents.VehicleRespawn(vehicle), async);
         }
     }
 
     @Override
     public void onObjectShot(GameObject object, Player player, int weaponId) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onObjectShot(object, player, weaponId);
+        for (EventListeners.ObjectShot listener : (EventListeners.ObjectShot[]) listeners(EventMethodName.onObjectShot)) {
+            listener.onObjectShot(object, player, weaponId);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onObjectShot);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.ObjectShot(object, player, weaponId), async);
         }
     }
 
     @Override
     public void onObjectTouched(GameObject object, Player player) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onObjectTouched(object, player);
+        for (EventListeners.ObjectTouched listener : (EventListeners.ObjectTouched[]) listeners(EventMethodName.onObjectTouched)) {
+            listener.onObjectTouched(object, player);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onObjectTouched);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.ObjectTouched(object, player), async);
         }
     }
 
     @Override
     public boolean onPickupPickAttempt(Pickup pickup, Player player) {
-        for (EventHandler eventHandler : delegates) {
-            if (!eventHandler.onPickupPickAttempt(pickup, player)) {
-                return false;
+        Dispatch current = dispatch;
+        EventListeners.PickupPickAttempt[] listeners = (EventListeners.PickupPickAttempt[]) current.listeners[EventMethodName.onPickupPickAttempt.ordinal()];
+        boolean[] receiveCancelled = current.receiveCancelled[EventMethodName.onPickupPickAttempt.ordinal()];
+        boolean allowed = true;
+
+        for (int i = 0; i < listeners.length; i++) {
+            if (allowed) {
+                allowed = listeners[i].onPickupPickAttempt(pickup, player);
+            } else if (receiveCancelled[i]) {
+                listeners[i].onPickupPickAttempt(pickup, player);
             }
         }
 
-        return true;
+        return allowed;
     }
 
     @Override
     public void onPickupPicked(Pickup pickup, Player player) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPickupPicked(pickup, player);
+        for (EventListeners.PickupPicked listener : (EventListeners.PickupPicked[]) listeners(EventMethodName.onPickupPicked)) {
+            listener.onPickupPicked(pickup, player);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPickupPicked);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PickupPicked(pickup, player), async);
         }
     }
 
     @Override
     public void onPickupRespawn(Pickup pickup) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPickupRespawn(pickup);
+        for (EventListeners.PickupRespawn listener : (EventListeners.PickupRespawn[]) listeners(EventMethodName.onPickupRespawn)) {
+            listener.onPickupRespawn(pickup);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPickupRespawn);
+
+        if (async.length > 0) {
+            asyncEvents().submit(AsyncEventPipeline.entityKey(Pickup.class, pickup.getId()), new AsyncEvents.PickupRespawn(pickup), async);
         }
     }
 
     @Override
     public void onCheckPointEntered(CheckPoint checkPoint, Player player) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onCheckPointEntered(checkPoint, player);
+        for (EventListeners.CheckPointEntered listener : (EventListeners.CheckPointEntered[]) listeners(EventMethodName.onCheckPointEntered)) {
+            listener.onCheckPointEntered(checkPoint, player);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onCheckPointEntered);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.CheckPointEntered(checkPoint, player), async);
         }
     }
 
     @Override
     public void onCheckPointExited(CheckPoint checkPoint, Player player) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onCheckPointExited(checkPoint, player);
+        for (EventListeners.CheckPointExited listener : (EventListeners.CheckPointExited[]) listeners(EventMethodName.onCheckPointExited)) {
+            listener.onCheckPointExited(checkPoint, player);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onCheckPointExited);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.CheckPointExited(checkPoint, player), async);
         }
     }
 
     @Override
     public void onPlayerCrashReport(Player player, String crashLog) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerCrashReport(player, crashLog);
+        for (EventListeners.PlayerCrashReport listener : (EventListeners.PlayerCrashReport[]) listeners(EventMethodName.onPlayerCrashReport)) {
+            listener.onPlayerCrashReport(player, crashLog);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerCrashReport);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerCrashReport(player, crashLog), async);
         }
     }
 
     @Override
     public void onPlayerModuleList(Player player, String list) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onPlayerModuleList(player, list);
+        for (EventListeners.PlayerModuleList listener : (EventListeners.PlayerModuleList[]) listeners(EventMethodName.onPlayerModuleList)) {
+            listener.onPlayerModuleList(player, list);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onPlayerModuleList);
+
+        if (async.length > 0) {
+            asyncEvents().submit(player.getId(), new AsyncEvents.PlayerModuleList(player, list), async);
         }
     }
 
     @Override
     public void onServerPerformanceReport(int entry, String[] descriptions, long[] times) {
-        for (EventHandler eventHandler : delegates) {
-            eventHandler.onServerPerformanceReport(entry, descriptions, times);
+        for (EventListeners.ServerPerformanceReport listener : (EventListeners.ServerPerformanceReport[]) listeners(EventMethodName.onServerPerformanceReport)) {
+            listener.onServerPerformanceReport(entry, descriptions, times);
+        }
+
+        EventListeners.Async[] async = asyncListeners(EventMethodName.onServerPerformanceReport);
+
+        if (async.length > 0) {
+            asyncEvents().submit(EventMethodName.onServerPerformanceReport, new AsyncEvents.ServerPerformanceReport(entry, descriptions, times), async);
         }
     }
 
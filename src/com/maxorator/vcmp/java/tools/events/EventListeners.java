@@ -0,0 +1,208 @@
+package com.maxorator.vcmp.java.tools.events;
+
+import com.maxorator.vcmp.java.plugin.integration.placeable.CheckPoint;
+import com.maxorator.vcmp.java.plugin.integration.placeable.GameObject;
+import com.maxorator.vcmp.java.plugin.integration.placeable.Pickup;
+import com.maxorator.vcmp.java.plugin.integration.player.Player;
+import com.maxorator.vcmp.java.plugin.integration.vehicle.Vehicle;
+
+/**
+ * A single method listener interface per event, with the same signature as the EventHandler method. Subscriptions are
+ * turned into implementations of these, so that each event is dispatched through an array of its own listener type.
+ */
+final class EventListeners {
+
+    private EventListeners() {
+    }
+
+    /**
+     * Listener of an {@link Subscribe#async()} subscriber, called with the event's {@link AsyncEvents} copy.
+     */
+    public interface Async {
+        void onEvent(Object event);
+    }
+
+    public interface ServerLoadScripts {
+        void onServerLoadScripts();
+    }
+
+    public interface ServerUnloadScripts {
+        void onServerUnloadScripts();
+    }
+
+    public interface ServerInitialise {
+        boolean onServerInitialise();
+    }
+
+    public interface ServerShutdown {
+        void onServerShutdown();
+    }
+
+    public interface ServerFrame {
+        void onServerFrame();
+    }
+
+    public interface PluginCommand {
+        void onPluginCommand(int identifier, String message);
+    }
+
+    public interface IncomingConnection {
+        String onIncomingConnection(String name, String password, String ip);
+    }
+
+    public interface ClientScriptData {
+        void onClientScriptData(Player player, byte[] data);
+    }
+
+    public interface PlayerConnect {
+        void onPlayerConnect(Player player);
+    }
+
+    public interface PlayerDisconnect {
+        void onPlayerDisconnect(Player player, int reason);
+    }
+
+    public interface PlayerRequestClass {
+        boolean onPlayerRequestClass(Player player, int classIndex);
+    }
+
+    public interface PlayerRequestSpawn {
+        boolean onPlayerRequestSpawn(Player player);
+    }
+
+    public interface PlayerSpawn {
+        void onPlayerSpawn(Player player);
+    }
+
+    public interface PlayerDeath {
+        void onPlayerDeath(Player player, Player killer, int reason, int bodyPart);
+    }
+
+    public interface PlayerUpdate {
+        void onPlayerUpdate(Player player, int updateType);
+    }
+
+    public interface PlayerRequestEnterVehicle {
+        boolean onPlayerRequestEnterVehicle(Player player, Vehicle vehicle, int slot);
+    }
+
+    public interface PlayerEnterVehicle {
+        void onPlayerEnterVehicle(Player player, Vehicle vehicle, int slot);
+    }
+
+    public interface PlayerExitVehicle {
+        void onPlayerExitVehicle(Player player, Vehicle vehicle);
+    }
+
+    public interface PlayerNameChange {
+        void onPlayerNameChange(Player player, String oldName, String newName);
+    }
+
+    public interface PlayerStateChange {
+        void onPlayerStateChange(Player player, int oldState, int newState);
+    }
+
+    public interface PlayerActionChange {
+        void onPlayerActionChange(Player player, int oldAction, int newAction);
+    }
+
+    public interface PlayerOnFireChange {
+        void onPlayerOnFireChange(Player player, boolean isOnFire);
+    }
+
+    public interface PlayerCrouchChange {
+        void onPlayerCrouchChange(Player player, boolean isCrouching);
+    }
+
+    public interface PlayerGameKeysChange {
+        void onPlayerGameKeysChange(Player player, int oldKeys, int newKeys);
+    }
+
+    public interface PlayerBeginTyping {
+        void onPlayerBeginTyping(Player player);
+    }
+
+    public interface PlayerEndTyping {
+        void onPlayerEndTyping(Player player);
+    }
+
+    public interface PlayerAwayChange {
+        void onPlayerAwayChange(Player player, boolean isAway);
+    }
+
+    public interface PlayerMessage {
+        boolean onPlayerMessage(Player player, String message);
+    }
+
+    public interface PlayerCommand {
+        boolean onPlayerCommand(Player player, String message);
+    }
+
+    public interface PlayerPrivateMessage {
+        boolean onPlayerPrivateMessage(Player player, Player recipient, String message);
+    }
+
+    public interface PlayerKeyBindDown {
+        void onPlayerKeyBindDown(Player player, int keyBindIndex);
+    }
+
+    public interface PlayerKeyBindUp {
+        void onPlayerKeyBindUp(Player player, int keyBindIndex);
+    }
+
+    public interface PlayerSpectate {
+        void onPlayerSpectate(Player player, Player spectated);
+    }
+
+    public interface VehicleUpdate {
+        void onVehicleUpdate(Vehicle vehicle, int updateType);
+    }
+
+    public interface VehicleExplode {
+        void onVehicleExplode(Vehicle vehicle);
+    }
+
+    public interface VehicleRespawn {
+        void onVehicleRespawn(Vehicle vehicle);
+    }
+
+    public interface ObjectShot {
+        void onObjectShot(GameObject object, Player player, int weaponId);
+    }
+
+    public interface ObjectTouched {
+        void onObjectTouched(GameObject object, Player player);
+    }
+
+    public interface PickupPickAttempt {
+        boolean onPickupPickAttempt(Pickup pickup, Player player);
+    }
+
+    public interface PickupPicked {
+        void onPickupPicked(Pickup pickup, Player player);
+    }
+
+    public interface PickupRespawn {
+        void onPickupRespawn(Pickup pickup);
+    }
+
+    public interface CheckPointEntered {
+        void onCheckPointEntered(CheckPoint checkPoint, Player player);
+    }
+
+    public interface CheckPointExited {
+        void onCheckPointExited(CheckPoint checkPoint, Player player);
+    }
+
+    public interface PlayerCrashReport {
+        void onPlayerCrashReport(Player player, String crashLog);
+    }
+
+    public interface PlayerModuleList {
+        void onPlayerModuleList(Player player, String list);
+    }
+
+    public interface ServerPerformanceReport {
+        void onServerPerformanceReport(int entry, String[] descriptions, long[] times);
+    }
+}
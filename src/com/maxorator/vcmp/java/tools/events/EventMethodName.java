@@ -1,50 +1,58 @@
 package com.maxorator.vcmp.java.tools.events;
 
 enum EventMethodName {
-    onServerLoadScripts,
-    onServerUnloadScripts,
-    onServerInitialise,
-    onServerShutdown,
-    onServerFrame,
-    onPluginCommand,
-    onIncomingConnection,
-    onClientScriptData,
-    onPlayerConnect,
-    onPlayerDisconnect,
-    onPlayerRequestClass,
-    onPlayerRequestSpawn,
-    onPlayerSpawn,
-    onPlayerDeath,
-    onPlayerUpdate,
-    onPlayerRequestEnterVehicle,
-    onPlayerEnterVehicle,
-    onPlayerExitVehicle,
-    onPlayerNameChange,
-    onPlayerStateChange,
-    onPlayerActionChange,
-    onPlayerOnFireChange,
-    onPlayerCrouchChange,
-    onPlayerGameKeysChange,
-    onPlayerBeginTyping,
-    onPlayerEndTyping,
-    onPlayerAwayChange,
-    onPlayerMessage,
-    onPlayerCommand,
-    onPlayerPrivateMessage,
-    onPlayerKeyBindDown,
-    onPlayerKeyBindUp,
-    onPlayerSpectate,
-    onVehicleUpdate,
-    onVehicleExplode,
-    onVehicleRespawn,
-    onObjectShot,
-    onObjectTouched,
-    onPickupPickAttempt,
-    onPickupPicked,
-    onPickupRespawn,
-    onCheckPointEntered,
-    onCheckPointExited,
-    onPlayerCrashReport,
-    onPlayerModuleList,
-    onServerPerformanceReport
+    onServerLoadScripts(EventListeners.ServerLoadScripts.class, AsyncEvents.ServerLoadScripts.class),
+    onServerUnloadScripts(EventListeners.ServerUnloadScripts.class, AsyncEvents.ServerUnloadScripts.class),
+    onServerInitialise(EventListeners.ServerInitialise.class, null),
+    onServerShutdown(EventListeners.ServerShutdown.class, AsyncEvents.ServerShutdown.class),
+    onServerFrame(EventListeners.ServerFrame.class, AsyncEvents.ServerFrame.class),
+    onPluginCommand(EventListeners.PluginCommand.class, AsyncEvents.PluginCommand.class),
+    onIncomingConnection(EventListeners.IncomingConnection.class, null),
+    onClientScriptData(EventListeners.ClientScriptData.class, AsyncEvents.ClientScriptData.class),
+    onPlayerConnect(EventListeners.PlayerConnect.class, AsyncEvents.PlayerConnect.class),
+    onPlayerDisconnect(EventListeners.PlayerDisconnect.class, AsyncEvents.PlayerDisconnect.class),
+    onPlayerRequestClass(EventListeners.PlayerRequestClass.class, null),
+    onPlayerRequestSpawn(EventListeners.PlayerRequestSpawn.class, null),
+    onPlayerSpawn(EventListeners.PlayerSpawn.class, AsyncEvents.PlayerSpawn.class),
+    onPlayerDeath(EventListeners.PlayerDeath.class, AsyncEvents.PlayerDeath.class),
+    onPlayerUpdate(EventListeners.PlayerUpdate.class, AsyncEvents.PlayerUpdate.class),
+    onPlayerRequestEnterVehicle(EventListeners.PlayerRequestEnterVehicle.class, null),
+    onPlayerEnterVehicle(EventListeners.PlayerEnterVehicle.class, AsyncEvents.PlayerEnterVehicle.class),
+    onPlayerExitVehicle(EventListeners.PlayerExitVehicle.class, AsyncEvents.PlayerExitVehicle.class),
+    onPlayerNameChange(EventListeners.PlayerNameChange.class, AsyncEvents.PlayerNameChange.class),
+    onPlayerStateChange(EventListeners.PlayerStateChange.class, AsyncEvents.PlayerStateChange.class),
+    onPlayerActionChange(EventListeners.PlayerActionChange.class, AsyncEvents.PlayerActionChange.class),
+    onPlayerOnFireChange(EventListeners.PlayerOnFireChange.class, AsyncEvents.PlayerOnFireChange.class),
+    onPlayerCrouchChange(EventListeners.PlayerCrouchChange.class, AsyncEvents.PlayerCrouchChange.class),
+    onPlayerGameKeysChange(EventListeners.PlayerGameKeysChange.class, AsyncEvents.PlayerGameKeysChange.class),
+    onPlayerBeginTyping(EventListeners.PlayerBeginTyping.class, AsyncEvents.PlayerBeginTyping.class),
+    onPlayerEndTyping(EventListeners.PlayerEndTyping.class, AsyncEvents.PlayerEndTyping.class),
+    onPlayerAwayChange(EventListeners.PlayerAwayChange.class, AsyncEvents.PlayerAwayChange.class),
+    onPlayerMessage(EventListeners.PlayerMessage.class, null),
+    onPlayerCommand(EventListeners.PlayerCommand.class, null),
+    onPlayerPrivateMessage(EventListeners.PlayerPrivateMessage.class, null),
+    onPlayerKeyBindDown(EventListeners.PlayerKeyBindDown.class, AsyncEvents.PlayerKeyBindDown.class),
+    onPlayerKeyBindUp(EventListeners.PlayerKeyBindUp.class, AsyncEvents.PlayerKeyBindUp.class),
+    onPlayerSpectate(EventListeners.PlayerSpectate.class, AsyncEvents.PlayerSpectate.class),
+    onVehicleUpdate(EventListeners.VehicleUpdate.class, AsyncEvents.VehicleUpdate.class),
+    onVehicleExplode(EventListeners.VehicleExplode.class, AsyncEvents.VehicleExplode.class),
+    onVehicleRespawn(EventListeners.VehicleRespawn.class, AsyncEvents.VehicleRespawn.class),
+    onObjectShot(EventListeners.ObjectShot.class, AsyncEvents.ObjectShot.class),
+    onObjectTouched(EventListeners.ObjectTouched.class, AsyncEvents.ObjectTouched.class),
+    onPickupPickAttempt(EventListeners.PickupPickAttempt.class, null),
+    onPickupPicked(EventListeners.PickupPicked.class, AsyncEvents.PickupPicked.class),
+    onPickupRespawn(EventListeners.PickupRespawn.class, AsyncEvents.PickupRespawn.class),
+    onCheckPointEntered(EventListeners.CheckPointEntered.class, AsyncEvents.CheckPointEntered.class),
+    onCheckPointExited(EventListeners.CheckPointExited.class, AsyncEvents.CheckPointExited.class),
+    onPlayerCrashReport(EventListeners.PlayerCrashReport.class, AsyncEvents.PlayerCrashReport.class),
+    onPlayerModuleList(EventListeners.PlayerModuleList.class, AsyncEvents.PlayerModuleList.class),
+    onServerPerformanceReport(EventListeners.ServerPerformanceReport.class, AsyncEvents.ServerPerformanceReport.class);
+
+    final Class<?> listenerType;
+    final Class<?> asyncEventType;
+
+    EventMethodName(Class<?> listenerType, Class<?> asyncEventType) {
+        this.listenerType = listenerType;
+        this.asyncEventType = asyncEventType;
+    }
 }
@@ -0,0 +1,268 @@
+package com.maxorator.vcmp.java.tools.events;
+
+import com.maxorator.vcmp.java.plugin.integration.EventHandler;
+import com.maxorator.vcmp.java.plugin.integration.RootEventHandler;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns the event methods of an object into listeners and sorts them into per-event dispatch arrays. Listeners are
+ * generated with LambdaMetafactory, so calling one is a plain interface call straight into the subscribed method.
+ * Methods the generated class cannot link against directly, such as ones of a non-public class, are called through
+ * the EventHandler interface when the object is an EventHandler and through a method handle proxy otherwise.
+ */
+final class EventSubscriptions {
+
+    static final EventMethodName[] EVENTS = EventMethodName.values();
+    private static final Map<String, EventMethodName> EVENT_INDEX = new HashMap<>();
+    private static final MethodType[] EVENT_TYPES = new MethodType[EVENTS.length];
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    static {
+        for (EventMethodName event : EVENTS) {
+            EVENT_INDEX.put(event.name(), event);
+        }
+
+        for (Method method : EventHandler.class.getMethods()) {
+            EventMethodName event = EVENT_INDEX.get(method.getName());
+
+            if (event != null) {
+                EVENT_TYPES[event.ordinal()] = MethodType.methodType(method.getReturnType(), method.getParameterTypes());
+            }
+        }
+    }
+
+    private EventSubscriptions() {
+    }
+
+    /**
+     * Collects the event methods of the target: every overridden event method below RootEventHandler if it is an
+     * EventHandler, and every method annotated with {@link Subscribe} that is named after an event.
+     */
+    static List<Subscription> collect(Object target) {
+        List<Subscription> subscriptions = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        boolean isEventHandler = target instanceof EventHandler;
+
+        for (Class<?> current = target.getClass(); current != null && current != RootEventHandler.class && current != Object.class; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                EventMethodName event = EVENT_INDEX.get(method.getName());
+
+                if (event == null || method.isBridge() || Modifier.isStatic(method.getModifiers()) || Modifier.isAbstract(method.getModifiers())) {
+                    continue;
+                }
+
+                Subscribe subscribe = method.getAnnotation(Subscribe.class);
+                boolean async = subscribe != null && subscribe.async();
+
+                if (async && event.asyncEventType == null) {
+                    System.err.println("Cannot subscribe " + current.getName() + "." + method.getName() + ": Only events without a return value can be async.");
+                    continue;
+                }
+
+                MethodType type = async ? MethodType.methodType(void.class, event.asyncEventType) : EVENT_TYPES[event.ordinal()];
+
+                if (!Arrays.equals(method.getParameterTypes(), type.parameterArray())) {
+                    if (async) {
+                        System.err.println("Cannot subscribe " + current.getName() + "." + method.getName() + ": Async listener must take a single " + event.asyncEventType.getName() + " parameter.");
+                    } else if (subscribe != null) {
+                        System.err.println("Cannot subscribe " + current.getName() + "." + method.getName() + ": Parameters must be the same as those of EventHandler." + method.getName() + ".");
+                    }
+
+                    continue;
+                }
+
+                if (!seen.add(async ? "async " + method.getName() : method.getName()) || (subscribe == null && !isEventHandler)) {
+                    continue;
+                }
+
+                if (method.getReturnType() != type.returnType()) {
+                    System.err.println("Cannot subscribe " + current.getName() + "." + method.getName() + ": Return type must be " + type.returnType().getName() + ".");
+                    continue;
+                }
+
+                Object listener;
+
+                try {
+                    listener = async ? createAsyncListener(event, target, method) : createListener(event, target, method);
+                } catch (Throwable e) {
+                    System.err.println("Cannot subscribe " + current.getName() + "." + method.getName() + ": Failed to compile event listener (" + e + ").");
+                    continue;
+                }
+
+                int priority = subscribe != null ? subscribe.priority() : 0;
+                boolean receiveCancelled = subscribe != null && !subscribe.ignoreCancelled();
+                subscriptions.add(new Subscription(target, event, listener, priority, receiveCancelled, async));
+            }
+        }
+
+        return subscriptions;
+    }
+
+    /**
+     * Sorts the subscriptions into an array per event, ordered by descending priority, with separate arrays for the
+     * async subscriptions. Subscriptions of equal priority keep the order they are given in.
+     */
+    static Dispatch build(List<Subscription> subscriptions) {
+        Object[][] listeners = new Object[EVENTS.length][];
+        boolean[][] receiveCancelled = new boolean[EVENTS.length][];
+        Object[][] asyncListeners = new Object[EVENTS.length][];
+        List<Subscription> matching = new ArrayList<>();
+
+        for (EventMethodName event : EVENTS) {
+            matching.clear();
+
+            for (Subscription subscription : subscriptions) {
+                if (subscription.event == event && subscription.async) {
+                    matching.add(subscription);
+                }
+            }
+
+            matching.sort((a, b) -> Integer.compare(b.priority, a.priority));
+            asyncListeners[event.ordinal()] = toListenerArray(EventListeners.Async.class, matching);
+            matching.clear();
+
+            for (Subscription subscription : subscriptions) {
+                if (subscription.event == event && !subscription.async) {
+                    matching.add(subscription);
+                }
+            }
+
+            matching.sort((a, b) -> Integer.compare(b.priority, a.priority));
+
+            boolean[] eventReceiveCancelled = new boolean[matching.size()];
+
+            for (int i = 0; i < eventReceiveCancelled.length; i++) {
+                eventReceiveCancelled[i] = matching.get(i).receiveCancelled;
+            }
+
+            listeners[event.ordinal()] = toListenerArray(event.listenerType, matching);
+            receiveCancelled[event.ordinal()] = eventReceiveCancelled;
+        }
+
+        return new Dispatch(listeners, receiveCancelled, asyncListeners);
+    }
+
+    private static Object[] toListenerArray(Class<?> listenerType, List<Subscription> subscriptions) {
+        Object[] listeners = (Object[]) Array.newInstance(listenerType, subscriptions.size());
+
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i] = subscriptions.get(i).listener;
+        }
+
+        return listeners;
+    }
+
+    private static Object createListener(EventMethodName event, Object target, Method method) throws Throwable {
+        MethodType type = EVENT_TYPES[event.ordinal()];
+
+        if (isLinkable(method)) {
+            try {
+                return metafactory(event.listenerType, event.name(), type, type, method.getDeclaringClass(), LOOKUP.unreflect(method), target);
+            } catch (Throwable e) {
+                // Not accessible from this package after all, fall through to the slower paths.
+            }
+        }
+
+        if (target instanceof EventHandler) {
+            return metafactory(event.listenerType, event.name(), type, type, EventHandler.class, LOOKUP.findVirtual(EventHandler.class, event.name(), type), target);
+        }
+
+        method.setAccessible(true);
+        return MethodHandleProxies.asInterfaceInstance(event.listenerType, LOOKUP.unreflect(method).bindTo(target));
+    }
+
+    private static Object createAsyncListener(EventMethodName event, Object target, Method method) throws Throwable {
+        MethodType type = MethodType.methodType(void.class, Object.class);
+
+        if (isLinkable(method)) {
+            try {
+                MethodType eventType = MethodType.methodType(void.class, event.asyncEventType);
+                return metafactory(EventListeners.Async.class, "onEvent", type, eventType, method.getDeclaringClass(), LOOKUP.unreflect(method), target);
+            } catch (Throwable e) {
+                // Not accessible from this package after all, fall through to the proxy.
+            }
+        }
+
+        method.setAccessible(true);
+        return MethodHandleProxies.asInterfaceInstance(EventListeners.Async.class, LOOKUP.unreflect(method).bindTo(target).asType(type));
+    }
+
+    private static Object metafactory(Class<?> listenerType, String name, MethodType type, MethodType instantiatedType, Class<?> receiverType, MethodHandle implementation, Object target) throws Throwable {
+        MethodType factoryType = MethodType.methodType(listenerType, receiverType);
+
+        return LambdaMetafactory.metafactory(LOOKUP, name, factoryType, type, implementation, instantiatedType).getTarget().invoke(target);
+    }
+
+    /**
+     * @return whether a class generated in this package can call the method directly
+     */
+    private static boolean isLinkable(Method method) {
+        if (!Modifier.isPublic(method.getModifiers())) {
+            return false;
+        }
+
+        for (Class<?> current = method.getDeclaringClass(); current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+
+        Class<?> declaringClass = method.getDeclaringClass();
+
+        try {
+            return Class.forName(declaringClass.getName(), false, EventSubscriptions.class.getClassLoader()) == declaringClass;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    static class Subscription {
+        final Object owner;
+        final EventMethodName event;
+        final Object listener;
+        final int priority;
+        final boolean receiveCancelled;
+        final boolean async;
+
+        Subscription(Object owner, EventMethodName event, Object listener, int priority, boolean receiveCancelled, boolean async) {
+            this.owner = owner;
+            this.event = event;
+            this.listener = listener;
+            this.priority = priority;
+            this.receiveCancelled = receiveCancelled;
+            this.async = async;
+        }
+    }
+
+    /**
+     * Listener arrays indexed by event ordinal, each of the event's own listener type, with a parallel array of
+     * whether each listener is still called after the event has been cancelled, and the async listeners in arrays of
+     * their own. Never modified once built.
+     */
+    static class Dispatch {
+        final Object[][] listeners;
+        final boolean[][] receiveCancelled;
+        final Object[][] asyncListeners;
+
+        Dispatch(Object[][] listeners, boolean[][] receiveCancelled, Object[][] asyncListeners) {
+            this.listeners = listeners;
+            this.receiveCancelled = receiveCancelled;
+            this.asyncListeners = asyncListeners;
+        }
+    }
+}
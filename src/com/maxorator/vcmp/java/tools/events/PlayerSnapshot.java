@@ -0,0 +1,27 @@
+package com.maxorator.vcmp.java.tools.events;
+
+import com.maxorator.vcmp.java.plugin.integration.player.Player;
+
+/**
+ * Identity of a player at the time an event happened, safe to read from any thread. The id may be reused by another
+ * player once this one has disconnected.
+ */
+public final class PlayerSnapshot {
+
+    public final int id;
+    public final String name;
+
+    PlayerSnapshot(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    static PlayerSnapshot of(Player player) {
+        return player != null ? new PlayerSnapshot(player.getId(), player.getName()) : null;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + id + ")";
+    }
+}
@@ -0,0 +1,43 @@
+package com.maxorator.vcmp.java.tools.events;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of an object passed to {@link DelegatingEventHandler#add(Object)} as a listener for the event it is
+ * named after. The method must have the same parameters and return type as the EventHandler method of that event, or a
+ * single {@link AsyncEvents} parameter when {@link #async()} is set. The object does not have to implement
+ * EventHandler. On an EventHandler the annotation can be put on an overridden event method to give it a priority.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Subscribe {
+
+    /**
+     * Listeners with a higher priority are called first. Listeners of equal priority, including EventHandler methods
+     * without this annotation which have priority 0, are called the most recently added first.
+     */
+    int priority() default 0;
+
+    /**
+     * Whether the listener is skipped once the event has been cancelled by an earlier listener: onPlayerMessage,
+     * onPlayerPrivateMessage or onPickupPickAttempt returning false, onPlayerCommand returning true or
+     * onIncomingConnection returning null. Set to false to still be called, the return value is then ignored.
+     */
+    boolean ignoreCancelled() default true;
+
+    /**
+     * Delivers the event on a worker thread instead of the server thread, only for events without a return value. The
+     * method takes the event's immutable copy from {@link AsyncEvents} as its only parameter, for example
+     * {@code onPlayerDeath(AsyncEvents.PlayerDeath event)}, and events concerning the same player, or the same vehicle
+     * or pickup if no player is involved, are delivered in order. Entities are only identified by id, look them up
+     * through the server on the server thread if needed: their getters read server state and must not be called from
+     * a worker. Async listeners are called after the synchronous ones have returned, the priority only orders them
+     * among each other.
+     *
+     * @see DelegatingEventHandler#setAsyncEvents(java.util.concurrent.Executor, int, int, BackpressurePolicy)
+     */
+    boolean async() default false;
+}
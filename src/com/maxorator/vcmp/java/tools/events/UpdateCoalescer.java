@@ -0,0 +1,68 @@
+package com.maxorator.vcmp.java.tools.events;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Collects the updates of one entity type during a frame. Dirty entity ids are kept in a bitset together with the
+ * entity and the bits (1 &lt;&lt; updateType) of the update types received, so each entity is delivered once per frame no
+ * matter how many updates arrived for it. Only used from the server thread.
+ */
+class UpdateCoalescer<T> {
+
+    private long[] dirty = new long[2];
+    private int[] updateTypes = new int[128];
+    private Object[] entities = new Object[128];
+
+    void mark(int id, T entity, int updateType) {
+        if (id >= entities.length) {
+            int capacity = Integer.highestOneBit(id) << 1;
+
+            dirty = Arrays.copyOf(dirty, capacity >> 6);
+            updateTypes = Arrays.copyOf(updateTypes, capacity);
+            entities = Arrays.copyOf(entities, capacity);
+        }
+
+        dirty[id >> 6] |= 1L << id;
+        updateTypes[id] |= 1 << updateType;
+        entities[id] = entity;
+    }
+
+    void clear(int id) {
+        if (id < entities.length) {
+            dirty[id >> 6] &= ~(1L << id);
+            updateTypes[id] = 0;
+            entities[id] = null;
+        }
+    }
+
+    /**
+     * Passes every entity updated since the last flush with its update type bits to the consumer, in order of id, and
+     * forgets them. Entities marked again from within the consumer are delivered no later than the next flush.
+     */
+    @SuppressWarnings("unchecked")
+    void flush(ObjIntConsumer<T> consumer) {
+        for (int word = 0; word < dirty.length; word++) {
+            long bits = dirty[word];
+
+            while (bits != 0) {
+                int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                // Clear each bit as it is consumed, an id marked again by the consumer keeps its bit for the next
+                // flush. Ids cleared by the consumer before their turn are skipped.
+                if ((dirty[word] & (1L << id)) == 0) {
+                    continue;
+                }
+
+                dirty[word] &= ~(1L << id);
+                T entity = (T) entities[id];
+                int types = updateTypes[id];
+                entities[id] = null;
+                updateTypes[id] = 0;
+
+                consumer.accept(entity, types);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.maxorator.vcmp.java.tools.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time copy of a {@link LatencyHistogram}. Durations are in nanoseconds.
+ */
+public class HistogramSnapshot {
+
+    private final long count;
+    private final long total;
+    private final long max;
+    private final long[] buckets;
+
+    HistogramSnapshot(long count, long total, long max, long[] buckets) {
+        this.count = count;
+        this.total = total;
+        this.max = max;
+        this.buckets = buckets;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * @param percentile value between 0 and 100
+     * @return upper bound of the bucket the percentile falls in, never more than the maximum
+     */
+    public long getPercentile(double percentile) {
+        long rank = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100.0);
+        long seen = 0;
+
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+
+            if (seen >= rank && seen > 0) {
+                return Math.min(i == 0 ? 0 : (1L << i) - 1, max);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * @return number of recorded durations per bucket, bucket i holding values below 2^i and at least 2^(i - 1)
+     */
+    public long[] getBuckets() {
+        return buckets.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms", count, toMillis(getMean()),
+                toMillis(getPercentile(50)), toMillis(getPercentile(99)), toMillis(max));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
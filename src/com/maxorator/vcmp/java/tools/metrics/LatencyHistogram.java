@@ -0,0 +1,60 @@
+package com.maxorator.vcmp.java.tools.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds with power of two buckets. Recording is a handful of striped counter
+ * increments, so it is cheap enough for every command or timer run and may be called from any thread.
+ */
+public class LatencyHistogram {
+
+    static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+
+        buckets[bucketOf(value)].increment();
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+
+        return new HistogramSnapshot(count.sum(), total.sum(), max.get(), counts);
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * @return bucket i holds values below 2^i and at least 2^(i - 1)
+     */
+    static int bucketOf(long value) {
+        return Math.min(64 - Long.numberOfLeadingZeros(value), BUCKETS - 1);
+    }
+}
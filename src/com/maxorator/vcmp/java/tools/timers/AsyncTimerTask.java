@@ -0,0 +1,55 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs on the frame thread when an async timer fires and hands the actual work to the registry's worker stripes. A
+ * firing is skipped while the previous run of the same timer has not finished yet.
+ */
+class AsyncTimerTask implements Runnable {
+
+    private final TimerRegistry registry;
+    private final Object key;
+    private final Runnable runnable;
+    private final Consumer<Throwable> completion;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    AsyncTimerTask(TimerRegistry registry, Object key, Runnable runnable, Consumer<Throwable> completion) {
+        this.registry = registry;
+        this.key = key != null ? key : this;
+        this.runnable = runnable;
+        this.completion = completion;
+    }
+
+    @Override
+    public void run() {
+        if (running.compareAndSet(false, true)) {
+            try {
+                registry.getAsyncWorkers().execute(key, this::runOnWorker);
+            } catch (RuntimeException | Error e) {
+                running.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void runOnWorker() {
+        Throwable failure = null;
+
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            running.set(false);
+        }
+
+        if (completion != null) {
+            Throwable result = failure;
+            registry.execute(() -> completion.accept(result));
+        } else if (failure != null) {
+            System.err.println("Async timer failed: " + failure);
+        }
+    }
+}
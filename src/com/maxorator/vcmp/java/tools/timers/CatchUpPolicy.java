@@ -0,0 +1,22 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+/**
+ * What a fixed-rate timer does when {@link TimerRegistry#process()} was not called in time and one or more of its
+ * firings were missed.
+ */
+public enum CatchUpPolicy {
+    /**
+     * Missed firings are dropped, the timer runs once and stays on its original schedule.
+     */
+    SKIP,
+
+    /**
+     * Missed firings are merged into a single run and the schedule restarts from that run.
+     */
+    COALESCE,
+
+    /**
+     * Every missed firing runs, back to back, until the timer has caught up with its schedule.
+     */
+    RUN_ALL
+}
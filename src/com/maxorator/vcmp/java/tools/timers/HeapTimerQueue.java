@@ -0,0 +1,36 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+import com.maxorator.vcmp.java.tools.timers.TimerRegistry.TimerRunInstance;
+
+import java.util.PriorityQueue;
+
+public class HeapTimerQueue implements TimerQueue {
+
+    private final PriorityQueue<TimerRunInstance> queue = new PriorityQueue<>();
+
+    @Override
+    public void add(TimerRunInstance instance) {
+        queue.add(instance);
+    }
+
+    @Override
+    public boolean remove(TimerRunInstance instance) {
+        return queue.remove(instance);
+    }
+
+    @Override
+    public TimerRunInstance poll(long now) {
+        TimerRunInstance next = queue.peek();
+
+        if (next != null && next.executionStart <= now) {
+            return queue.remove();
+        }
+
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
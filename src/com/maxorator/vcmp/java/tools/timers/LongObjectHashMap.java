@@ -0,0 +1,150 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open addressing hash map from primitive long keys to non-null values, so lookups neither box the key nor allocate
+ * entries. Collisions are resolved by linear probing and removals shift later entries back instead of leaving
+ * tombstones. Not thread safe.
+ */
+public class LongObjectHashMap<V> {
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public LongObjectHashMap() {
+        this(16);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 8)) << 1;
+
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            Object value = values[slot];
+
+            if (value == null || keys[slot] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    /**
+     * @return value previously stored for the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported.");
+        }
+
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            Object previous = values[slot];
+
+            if (previous == null) {
+                keys[slot] = key;
+                values[slot] = value;
+
+                if (++size * 2 > values.length) {
+                    resize(values.length * 2);
+                }
+
+                return null;
+            } else if (keys[slot] == key) {
+                values[slot] = value;
+                return (V) previous;
+            }
+        }
+    }
+
+    /**
+     * @return value that was stored for the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            Object value = values[slot];
+
+            if (value == null) {
+                return null;
+            } else if (keys[slot] == key) {
+                shiftBack(slot);
+                size--;
+                return (V) value;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void shiftBack(int hole) {
+        for (int slot = (hole + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            int home = slot(keys[slot]);
+
+            // Move the entry into the hole unless its home slot lies cyclically within (hole, slot].
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+
+        values[hole] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i]);
+
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,53 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unbounded lock-free queue for many producer threads and a single consumer thread. Offering is one atomic swap,
+ * polling never blocks or spins. Only the consumer thread may call {@link #poll()} and {@link #isEmpty()}.
+ */
+public class MpscQueue<T> {
+
+    private final AtomicReference<Node<T>> head;
+    private Node<T> tail;
+
+    public MpscQueue() {
+        Node<T> stub = new Node<>(null);
+        head = new AtomicReference<>(stub);
+        tail = stub;
+    }
+
+    public void offer(T value) {
+        Node<T> node = new Node<>(value);
+        head.getAndSet(node).next = node;
+    }
+
+    /**
+     * @return oldest value, or null if the queue is empty or the next producer has not finished linking its value
+     */
+    public T poll() {
+        Node<T> next = tail.next;
+
+        if (next == null) {
+            return null;
+        }
+
+        T value = next.value;
+        next.value = null;
+        tail = next;
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return tail.next == null;
+    }
+
+    private static class Node<T> {
+        private volatile Node<T> next;
+        private T value;
+
+        private Node(T value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs tasks on an underlying executor while keeping tasks with the same key in submission order. Keys are hashed
+ * onto a fixed number of stripes, each stripe running at most one task at a time, so the number of stripes also bounds
+ * how many tasks run concurrently.
+ */
+public class StripedExecutor {
+
+    private final Executor executor;
+    private final Stripe[] stripes;
+
+    /**
+     * @param executor executor the stripes run on
+     * @param stripeCount maximum number of tasks running at the same time
+     */
+    public StripedExecutor(Executor executor, int stripeCount) {
+        this.executor = executor;
+        this.stripes = new Stripe[Math.max(stripeCount, 1)];
+
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @param key tasks with equal keys run one after another in the order they were submitted
+     * @throws java.util.concurrent.RejectedExecutionException if the executor rejects the stripe, the task is then
+     *         not run
+     */
+    public void execute(Object key, Runnable task) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+
+        Stripe stripe = stripes[Math.floorMod(hash, stripes.length)];
+        stripe.tasks.offer(task);
+
+        try {
+            stripe.schedule();
+        } catch (RuntimeException | Error e) {
+            stripe.tasks.remove(task);
+            throw e;
+        }
+    }
+
+    private class Stripe implements Runnable {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RuntimeException | Error e) {
+                    // Let a later execute() schedule the stripe again.
+                    scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task;
+
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+            } finally {
+                scheduled.set(false);
+
+                if (!tasks.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+/**
+ * Data structure a {@link TimerRegistry} keeps pending timers in.
+ */
+public enum TimerEngine {
+    /**
+     * Binary heap, O(log n) to schedule and O(n) to cancel a timer.
+     */
+    PRIORITY_QUEUE,
+
+    /**
+     * Hierarchical timing wheel with millisecond ticks, O(1) to schedule and cancel a timer.
+     */
+    TIMING_WHEEL
+}
@@ -0,0 +1,114 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+import com.maxorator.vcmp.java.tools.timers.TimerRegistry.TimerRunInstance;
+
+import java.util.Arrays;
+
+/**
+ * Recurring timers sharing one interval and alignment. The group is a single entry in the timer queue and runs all of
+ * its members in one pass, members are kept in an array and removed by swapping in the last one.
+ */
+class TimerGroup implements Runnable {
+
+    final Key key;
+    private final TimerRegistry registry;
+    TimerRunInstance timer;
+    private TimerRunInstance[] members = new TimerRunInstance[8];
+    private TimerRunInstance[] running = new TimerRunInstance[8];
+    private int size;
+
+    TimerGroup(TimerRegistry registry, Key key) {
+        this.registry = registry;
+        this.key = key;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(TimerRunInstance instance) {
+        if (size == members.length) {
+            members = Arrays.copyOf(members, size * 2);
+        }
+
+        instance.group = this;
+        instance.groupIndex = size;
+        members[size++] = instance;
+    }
+
+    void remove(TimerRunInstance instance) {
+        int index = instance.groupIndex;
+        TimerRunInstance last = members[--size];
+
+        members[index] = last;
+        last.groupIndex = index;
+        members[size] = null;
+
+        instance.group = null;
+        instance.groupIndex = -1;
+    }
+
+    /**
+     * Runs the members present when the pass starts. Members removed during the pass are skipped, a member throwing
+     * does not stop the others and the first exception is rethrown once all of them have run.
+     */
+    @Override
+    public void run() {
+        int count = size;
+
+        if (running.length < count) {
+            running = new TimerRunInstance[members.length];
+        }
+
+        System.arraycopy(members, 0, running, 0, count);
+        RuntimeException failure = null;
+
+        for (int i = 0; i < count; i++) {
+            TimerRunInstance instance = running[i];
+            running[i] = null;
+
+            if (instance.group != this || instance.state() != TimerRunInstance.SCHEDULED) {
+                continue;
+            }
+
+            try {
+                registry.runTimer(instance, timer.executionStart);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    static class Key {
+        final long interval;
+        final long alignment;
+
+        Key(long interval, long alignment) {
+            this.interval = interval;
+            this.alignment = alignment;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) o;
+            return interval == other.interval && alignment == other.alignment;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(interval) * 31 + Long.hashCode(alignment);
+        }
+    }
+}
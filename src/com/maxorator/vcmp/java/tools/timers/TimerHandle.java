@@ -4,4 +4,26 @@ public interface TimerHandle {
     boolean isActive();
 
     void cancel();
+
+    /**
+     * @return name shown in the statistics of the timer, null if none was given
+     */
+    default String getName() {
+        return null;
+    }
+
+    /**
+     * @param name name shown in the statistics of the timer, ignored by handles that do not keep statistics
+     * @return this handle
+     */
+    default TimerHandle setName(String name) {
+        return this;
+    }
+
+    /**
+     * @return statistics of the timer, or null if it has finished and its instance has been reused
+     */
+    default TimerStats getStats() {
+        return null;
+    }
 }
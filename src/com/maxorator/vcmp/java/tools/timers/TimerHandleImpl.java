@@ -1,21 +1,45 @@
 package com.maxorator.vcmp.java.tools.timers;
 
+import com.maxorator.vcmp.java.tools.timers.TimerRegistry.TimerRunInstance;
+
 public class TimerHandleImpl implements TimerHandle {
+    private final TimerRunInstance instance;
     private final long uniqueId;
     private final TimerRegistry timerRegistry;
 
-    TimerHandleImpl(long uniqueId, TimerRegistry timerRegistry) {
+    TimerHandleImpl(TimerRunInstance instance, long uniqueId, TimerRegistry timerRegistry) {
+        this.instance = instance;
         this.uniqueId = uniqueId;
         this.timerRegistry = timerRegistry;
     }
 
     @Override
     public boolean isActive() {
-        return timerRegistry.isTimerActive(uniqueId);
+        return timerRegistry.isTimerActive(instance, uniqueId);
     }
 
     @Override
     public void cancel() {
-        timerRegistry.cancelTimer(uniqueId);
+        timerRegistry.cancelTimer(instance, uniqueId);
+    }
+
+    @Override
+    public String getName() {
+        String name = instance.name;
+        return instance.isUsedBy(uniqueId) ? name : null;
+    }
+
+    @Override
+    public TimerHandle setName(String name) {
+        if (instance.isUsedBy(uniqueId)) {
+            instance.name = name;
+        }
+
+        return this;
+    }
+
+    @Override
+    public TimerStats getStats() {
+        return instance.snapshot(uniqueId);
     }
 }
@@ -0,0 +1,24 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+import com.maxorator.vcmp.java.tools.timers.TimerRegistry.TimerRunInstance;
+
+/**
+ * Pending timers of a {@link TimerRegistry}, ordered by execution start.
+ */
+public interface TimerQueue {
+
+    void add(TimerRunInstance instance);
+
+    /**
+     * @return whether the instance was queued
+     */
+    boolean remove(TimerRunInstance instance);
+
+    /**
+     * @param now current time in milliseconds
+     * @return the queued instance with the earliest execution start if it is at or before now, otherwise null
+     */
+    TimerRunInstance poll(long now);
+
+    int size();
+}
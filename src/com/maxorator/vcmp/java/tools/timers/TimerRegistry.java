@@ -1,100 +1,782 @@
 package com.maxorator.vcmp.java.tools.timers;
 
+import com.maxorator.vcmp.java.tools.metrics.HistogramSnapshot;
+import com.maxorator.vcmp.java.tools.metrics.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Timers run by {@link #process()}, which must always be called from the same thread, normally the server thread.
+ * That thread owns the timer queue and changes it without locking. Other threads may register and cancel timers at
+ * any time, their changes are handed over through a lock-free queue and applied at the start of the next process().
+ * Times are measured with a monotonic clock, so changes to the system time do not move timers.
+ * <p>
+ * A frame budget limits how long one process() call may spend running timers. Due timers left over when it runs out
+ * are run first by the following calls, in the order they became due, so a burst of timers is spread over several
+ * frames without any of them starving.
+ * <p>
+ * Recurring timers registered with {@link #registerAligned(long, long, Runnable)} are grouped by interval and
+ * alignment, each group taking a single queue entry no matter how many timers it holds.
+ * <p>
+ * Timers registered with {@link #registerAsync(boolean, long, Object, Runnable, Consumer)} fire on the frame thread
+ * but run their work on a bounded pool of worker threads, keeping runs with the same key in order.
+ * <p>
+ * Recurring timers are rescheduled in place and finished one-shot timers are recycled for later registrations made on
+ * the frame thread, so firing timers does not allocate. Handles remember the id of the timer they were created for
+ * and ignore the instance once it has been recycled.
+ * <p>
+ * Every firing is measured: its lag behind the scheduled time, its runtime and whether it finished after the next
+ * firing was due. These are kept per timer, see {@link TimerHandle#getStats()}, and in registry wide histograms.
+ * <p>
+ * The registry is also an {@link Executor} for the frame thread: tasks passed to {@link #execute(Runnable)} from any
+ * thread run at the start of the next process() call, and {@link #delay(long)} and {@link #schedule(long, Callable)}
+ * complete their futures on the frame thread.
+ * <p>
+ * Timers registered through a {@link #scope(Object)} belong to its owner and can all be cancelled with
+ * {@link #cancelAll(Object)}, at a cost proportional to the number of timers the owner has.
+ */
+public class TimerRegistry implements Executor {
 
-public class TimerRegistry {
+    private static final int MAX_POOLED_INSTANCES = 1024;
 
-    protected final Map<Long, TimerRunInstance> activeTimers = new HashMap<>();
-    protected final Object lock = new Object();
-    protected final Object processLock = new Object();
-    protected final PriorityQueue<TimerRunInstance> timerQueue = new PriorityQueue<>();
+    protected final LongObjectHashMap<TimerRunInstance> activeTimers = new LongObjectHashMap<>();
+    protected final TimerQueue timerQueue;
+    protected final MpscQueue<TimerRunInstance> submissions = new MpscQueue<>();
+    protected final MpscQueue<Runnable> tasks = new MpscQueue<>();
+    private final AtomicLong submittedTasks = new AtomicLong();
+    private long completedTasks;
     protected final AtomicLong idIncrementor = new AtomicLong();
+    protected final ArrayDeque<TimerRunInstance> deferredTimers = new ArrayDeque<>();
+    private final Map<TimerGroup.Key, TimerGroup> timerGroups = new HashMap<>();
+    private final Map<Object, TimerRunInstance> ownedTimers = new HashMap<>();
+    private long frameBudgetNanos = Long.MAX_VALUE;
+    private int frameBudgetTimers = Integer.MAX_VALUE;
+    private final long clockOrigin = System.nanoTime();
+    private volatile StripedExecutor asyncWorkers;
+    private TimerRunInstance pooledInstances;
+    private int pooledCount;
+    private final LatencyHistogram lagHistogram = new LatencyHistogram();
+    private final LatencyHistogram runtimeHistogram = new LatencyHistogram();
+    private final LongAdder overruns = new LongAdder();
+    private boolean statsEnabled = true;
+    private volatile Thread frameThread;
 
     public TimerRegistry() {
+        this(TimerEngine.TIMING_WHEEL);
+    }
 
+    public TimerRegistry(TimerEngine engine) {
+        if (engine == TimerEngine.PRIORITY_QUEUE) {
+            timerQueue = new HeapTimerQueue();
+        } else {
+            timerQueue = new TimingWheelTimerQueue(now());
+        }
     }
 
+    /**
+     * @return milliseconds elapsed on a monotonic clock since this registry was created
+     */
+    public long now() {
+        return (System.nanoTime() - clockOrigin) / 1000000L;
+    }
+
+    /**
+     * Registers a one-shot timer, or a recurring timer with a fixed delay between the end of one run and the start of
+     * the next one.
+     */
     public TimerHandle register(boolean isRecurring, long waitTime, Runnable runnable) {
+        return register(null, waitTime, isRecurring ? Math.max(waitTime, 1) : 0, false, null, runnable);
+    }
+
+    /**
+     * Registers a recurring timer which waits the given delay after each run finishes before running again, so time
+     * spent in the runnable or waiting for a late frame pushes back all later runs.
+     */
+    public TimerHandle registerFixedDelay(long initialDelay, long delay, Runnable runnable) {
+        return register(null, initialDelay, Math.max(delay, 1), false, null, runnable);
+    }
+
+    /**
+     * Registers a recurring timer which runs at initialDelay + n * period regardless of how long each run takes.
+     *
+     * @param policy what to do with firings missed because frames fell behind
+     */
+    public TimerHandle registerFixedRate(long initialDelay, long period, CatchUpPolicy policy, Runnable runnable) {
+        return register(null, initialDelay, Math.max(period, 1), true, policy, runnable);
+    }
+
+    /**
+     * Same as registerAligned(interval, 0, runnable).
+     */
+    public TimerHandle registerAligned(long interval, Runnable runnable) {
+        return registerAligned(interval, 0, runnable);
+    }
+
+    /**
+     * Registers a recurring timer which shares a tick with every other aligned timer of the same interval and
+     * alignment. It runs whenever {@link #now()} passes a multiple of the interval plus the alignment, all timers of
+     * the tick running together in one pass. Missed ticks are skipped.
+     *
+     * @param alignment offset of the tick within the interval, in milliseconds
+     */
+    public TimerHandle registerAligned(long interval, long alignment, Runnable runnable) {
+        return registerAligned(null, interval, alignment, runnable);
+    }
+
+    TimerHandle registerAligned(Object owner, long interval, long alignment, Runnable runnable) {
+        long period = Math.max(interval, 1);
+        TimerRunInstance instance = obtainInstance(0, period, true, CatchUpPolicy.SKIP, runnable);
+        instance.alignment = Math.floorMod(alignment, period);
+        instance.owner = owner;
+
+        return submit(instance);
+    }
+
+    /**
+     * Same as registerAsync(isRecurring, waitTime, key, runnable, null).
+     */
+    public TimerHandle registerAsync(boolean isRecurring, long waitTime, Object key, Runnable runnable) {
+        return registerAsync(isRecurring, waitTime, key, runnable, null);
+    }
+
+    /**
+     * Registers a timer whose runnable runs on a worker thread instead of the frame thread. Runs of timers with the
+     * same key never overlap and start in the order they fired. A recurring timer skips a firing while its previous
+     * run is still in progress. The runnable must not touch game state, use the completion for that.
+     *
+     * @param key ordering key such as a player or owner, null to only order the runs of this timer
+     * @param completion called on the frame thread after every run with the exception it threw, or null if it
+     *                   succeeded. Without a completion, exceptions are reported on System.err.
+     */
+    public TimerHandle registerAsync(boolean isRecurring, long waitTime, Object key, Runnable runnable, Consumer<Throwable> completion) {
+        return register(isRecurring, waitTime, new AsyncTimerTask(this, key, runnable, completion));
+    }
+
+    /**
+     * @return worker stripes async timers run on, created on first use
+     */
+    public StripedExecutor getAsyncWorkers() {
+        StripedExecutor workers = asyncWorkers;
+
+        if (workers == null) {
+            synchronized (this) {
+                workers = asyncWorkers;
+
+                if (workers == null) {
+                    int parallelism = Runtime.getRuntime().availableProcessors();
+                    workers = new StripedExecutor(WorkerThreads.newExecutor("timer-worker", parallelism), parallelism);
+                    asyncWorkers = workers;
+                }
+            }
+        }
+
+        return workers;
+    }
+
+    /**
+     * @param executor executor async timers run on instead of the default worker pool
+     * @param parallelism maximum number of async timers running at the same time
+     */
+    public synchronized void setAsyncExecutor(Executor executor, int parallelism) {
+        asyncWorkers = new StripedExecutor(executor, parallelism);
+    }
+
+    TimerHandle register(Object owner, long initialDelay, long period, boolean fixedRate, CatchUpPolicy policy, Runnable runnable) {
+        TimerRunInstance instance = obtainInstance(now() + initialDelay, period, fixedRate, policy, runnable);
+        instance.owner = owner;
+
+        return submit(instance);
+    }
+
+    /**
+     * @param owner object the timers registered through the scope belong to, compared with equals()
+     */
+    public TimerScope scope(Object owner) {
+        if (owner == null) {
+            throw new IllegalArgumentException("Timer owner cannot be null.");
+        }
+
+        return new TimerScope(this, owner);
+    }
+
+    /**
+     * Cancels every timer registered through a scope of the owner, including ones registered from other threads that
+     * have not been scheduled yet. When called from another thread, the timers are cancelled at the start of the next
+     * process() call, before any of them can fire.
+     */
+    public void cancelAll(Object owner) {
+        if (!isFrameThread()) {
+            execute(() -> cancelAll(owner));
+            return;
+        }
+
+        // Timers registered from other threads only join their owner once scheduled.
+        drainSubmissions();
+
+        TimerRunInstance instance;
+
+        while ((instance = ownedTimers.get(owner)) != null) {
+            if (!instance.compareAndSetState(TimerRunInstance.PENDING, TimerRunInstance.CANCELLED)) {
+                instance.compareAndSetState(TimerRunInstance.SCHEDULED, TimerRunInstance.CANCELLED);
+            }
+
+            unschedule(instance);
+        }
+    }
+
+    private TimerHandle submit(TimerRunInstance instance) {
+        if (isFrameThread()) {
+            schedule(instance);
+        } else {
+            submissions.offer(instance);
+        }
+
+        return new TimerHandleImpl(instance, instance.uniqueId, this);
+    }
+
+    private boolean isFrameThread() {
+        return Thread.currentThread() == frameThread;
+    }
+
+    private TimerRunInstance obtainInstance(long executionStart, long period, boolean fixedRate, CatchUpPolicy policy, Runnable runnable) {
         long uniqueId = idIncrementor.incrementAndGet();
-        registerWithId(null, uniqueId, isRecurring, waitTime, runnable);
-        return new TimerHandleImpl(uniqueId, this);
+        TimerRunInstance instance = pooledInstances;
+
+        if (instance == null || !isFrameThread()) {
+            return new TimerRunInstance(uniqueId, executionStart, period, fixedRate, policy, runnable);
+        }
+
+        pooledInstances = instance.next;
+        pooledCount--;
+        instance.next = null;
+        instance.reset(uniqueId, executionStart, period, fixedRate, policy, runnable);
+        return instance;
+    }
+
+    private void recycleInstance(TimerRunInstance instance) {
+        if (pooledCount < MAX_POOLED_INSTANCES) {
+            instance.runnable = null;
+            instance.next = pooledInstances;
+            pooledInstances = instance;
+            pooledCount++;
+        }
     }
 
-    private void registerWithId(TimerRunInstance previous, long uniqueId, boolean isRecurring, long waitTime, Runnable runnable) {
-        long executionStart = System.currentTimeMillis() + waitTime;
-        TimerRunInstance instance = new TimerRunInstance(uniqueId, executionStart, isRecurring, waitTime, runnable);
+    private void schedule(TimerRunInstance instance) {
+        if (instance.compareAndSetState(TimerRunInstance.PENDING, TimerRunInstance.SCHEDULED)) {
+            activeTimers.put(instance.uniqueId, instance);
+
+            if (instance.owner != null) {
+                joinOwner(instance);
+            }
 
-        synchronized (lock) {
-            if (activeTimers.get(uniqueId) == previous) {
-                activeTimers.put(uniqueId, instance);
+            if (instance.alignment >= 0) {
+                joinGroup(instance);
+            } else {
                 timerQueue.add(instance);
             }
         }
     }
 
-    private TimerRunInstance retrieveNext() {
-        synchronized (lock) {
-            TimerRunInstance next = timerQueue.peek();
+    private void unschedule(TimerRunInstance instance) {
+        if (activeTimers.get(instance.uniqueId) == instance) {
+            forget(instance);
+
+            if (instance.group != null) {
+                leaveGroup(instance);
+            } else {
+                timerQueue.remove(instance);
+            }
+        }
+    }
+
+    private void forget(TimerRunInstance instance) {
+        activeTimers.remove(instance.uniqueId);
+
+        if (instance.owner != null) {
+            leaveOwner(instance);
+        }
+    }
+
+    private void joinOwner(TimerRunInstance instance) {
+        TimerRunInstance head = ownedTimers.put(instance.owner, instance);
+
+        instance.ownerNext = head;
+
+        if (head != null) {
+            head.ownerPrevious = instance;
+        }
+    }
+
+    private void leaveOwner(TimerRunInstance instance) {
+        TimerRunInstance previous = instance.ownerPrevious;
+        TimerRunInstance next = instance.ownerNext;
+
+        if (previous != null) {
+            previous.ownerNext = next;
+        } else if (next != null) {
+            ownedTimers.put(instance.owner, next);
+        } else {
+            ownedTimers.remove(instance.owner);
+        }
+
+        if (next != null) {
+            next.ownerPrevious = previous;
+        }
+
+        instance.ownerPrevious = null;
+        instance.ownerNext = null;
+        instance.owner = null;
+    }
+
+    private void joinGroup(TimerRunInstance instance) {
+        TimerGroup.Key key = new TimerGroup.Key(instance.waitTime, instance.alignment);
+        TimerGroup group = timerGroups.get(key);
+
+        if (group == null) {
+            long now = now();
+            long start = now - Math.floorMod(now - key.alignment, key.interval) + key.interval;
+
+            group = new TimerGroup(this, key);
+            group.timer = obtainInstance(start, key.interval, true, CatchUpPolicy.SKIP, group);
+            timerGroups.put(key, group);
+            schedule(group.timer);
+        }
+
+        group.add(instance);
+    }
+
+    private void leaveGroup(TimerRunInstance instance) {
+        TimerGroup group = instance.group;
+        group.remove(instance);
+
+        if (group.size() == 0) {
+            timerGroups.remove(group.key);
+
+            if (group.timer.compareAndSetState(TimerRunInstance.SCHEDULED, TimerRunInstance.CANCELLED)) {
+                unschedule(group.timer);
+            }
+        }
+    }
+
+    private void drainSubmissions() {
+        TimerRunInstance instance;
+
+        while ((instance = submissions.poll()) != null) {
+            if (instance.state() == TimerRunInstance.PENDING) {
+                schedule(instance);
+            } else if (instance.state() == TimerRunInstance.CANCELLED) {
+                unschedule(instance);
+            }
+        }
+    }
+
+    /**
+     * Runs the task on the frame thread at the start of the next process() call, also when called from the frame
+     * thread itself. Tasks run in the order they were submitted, tasks submitted while a batch is running wait for
+     * the next call. A task that throws is reported on System.err and does not keep the others from running.
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.offer(task);
+        submittedTasks.incrementAndGet();
+    }
+
+    /**
+     * @return future completed on the frame thread once the delay has passed, cancelling it cancels the timer
+     */
+    public CompletableFuture<Void> delay(long millis) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        TimerHandle handle = register(false, millis, () -> future.complete(null));
+        cancelWithFuture(future, handle);
+        return future;
+    }
 
-            if (next != null && next.executionStart <= System.currentTimeMillis()) {
-                timerQueue.remove();
-                return next;
+    /**
+     * @return future completed on the frame thread with the result of the callable, which runs there once the delay
+     *         has passed. Cancelling the future cancels the timer.
+     */
+    public <T> CompletableFuture<T> schedule(long millis, Callable<T> callable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        TimerHandle handle = register(false, millis, () -> {
+            if (!future.isDone()) {
+                try {
+                    future.complete(callable.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+
+        cancelWithFuture(future, handle);
+        return future;
+    }
+
+    private static void cancelWithFuture(CompletableFuture<?> future, TimerHandle handle) {
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                handle.cancel();
+            }
+        });
+    }
+
+    private void runTasks() {
+        long batch = submittedTasks.get() - completedTasks;
+
+        while (batch-- > 0) {
+            Runnable task = tasks.poll();
+
+            if (task == null) {
+                // Submitter has counted the task but not yet linked it, it runs in the next call.
+                return;
+            }
+
+            completedTasks++;
+
+            try {
+                task.run();
+            } catch (Throwable e) {
+                System.err.println("Frame thread task failed: " + e);
             }
         }
+    }
+
+    /**
+     * Limits how much work each {@link #process()} call does. At least one due timer is always run per call.
+     *
+     * @param maxNanos time after which no further timers are started in the same call, Long.MAX_VALUE for no limit
+     * @param maxTimers maximum number of timers run in the same call, Integer.MAX_VALUE for no limit
+     */
+    public void setFrameBudget(long maxNanos, int maxTimers) {
+        frameBudgetNanos = maxNanos;
+        frameBudgetTimers = maxTimers;
+    }
 
-        return null;
+    /**
+     * @return number of due timers the last process() call left for later calls because its budget ran out
+     */
+    public int getDeferredCount() {
+        return deferredTimers.size();
     }
 
     public void process() {
-        synchronized (processLock) {
-            TimerRunInstance instance;
+        process(frameBudgetNanos, frameBudgetTimers);
+    }
+
+    /**
+     * Runs due timers until there are none left or the given budget runs out.
+     *
+     * @return number of due timers deferred to later calls
+     */
+    public int process(long maxNanos, int maxTimers) {
+        frameThread = Thread.currentThread();
+        drainSubmissions();
+        runTasks();
 
-            while ((instance = retrieveNext()) != null) {
+        long now = now();
+        long started = maxNanos != Long.MAX_VALUE ? System.nanoTime() : 0;
+        int fired = 0;
+        TimerRunInstance instance;
+
+        while ((instance = nextDue(now)) != null) {
+            if (instance.state() != TimerRunInstance.SCHEDULED) {
+                forget(instance);
+                continue;
+            }
+
+            if (fired > 0 && (fired >= maxTimers || (maxNanos != Long.MAX_VALUE && System.nanoTime() - started >= maxNanos))) {
+                deferredTimers.addFirst(instance);
+                break;
+            }
+
+            fired++;
+            fire(instance, now);
+        }
+
+        while ((instance = timerQueue.poll(now)) != null) {
+            if (instance.state() == TimerRunInstance.SCHEDULED) {
+                deferredTimers.addLast(instance);
+            } else {
+                forget(instance);
+            }
+        }
+
+        return deferredTimers.size();
+    }
+
+    private TimerRunInstance nextDue(long now) {
+        TimerRunInstance instance = deferredTimers.pollFirst();
+        return instance != null ? instance : timerQueue.poll(now);
+    }
+
+    private void fire(TimerRunInstance instance, long now) {
+        long finished = 0;
+
+        try {
+            if (instance.runnable instanceof TimerGroup) {
                 instance.runnable.run();
+            } else {
+                finished = runTimer(instance, instance.executionStart);
+            }
+        } finally {
+            if (instance.isRecurring && instance.state() == TimerRunInstance.SCHEDULED) {
+                instance.executionStart = nextExecution(instance, now, finished);
+                timerQueue.add(instance);
+            } else if (instance.compareAndSetState(TimerRunInstance.SCHEDULED, TimerRunInstance.DONE)) {
+                forget(instance);
+                recycleInstance(instance);
+            } else {
+                forget(instance);
+            }
+        }
+    }
 
-                if (instance.isRecurring) {
-                    registerWithId(instance, instance.uniqueId, true, instance.waitTime, instance.runnable);
-                } else {
-                    synchronized (lock) {
-                        activeTimers.remove(instance.uniqueId);
-                    }
-                }
+    /**
+     * @return System.nanoTime() at the end of the run if it was measured for the statistics, otherwise 0
+     */
+    long runTimer(TimerRunInstance instance, long executionStart) {
+        if (!statsEnabled) {
+            instance.runnable.run();
+            return 0;
+        }
+
+        long started = System.nanoTime();
+        long finished;
+
+        try {
+            instance.runnable.run();
+        } finally {
+            finished = System.nanoTime();
+            long runtime = finished - started;
+            long lag = Math.max(started - clockOrigin - executionStart * 1000000L, 0);
+            boolean overrun = instance.isRecurring && lag + runtime > instance.waitTime * 1000000L;
+
+            instance.recordFiring(lag, runtime, overrun);
+            lagHistogram.record(lag);
+            runtimeHistogram.record(runtime);
+
+            if (overrun) {
+                overruns.increment();
             }
         }
+
+        return finished;
+    }
+
+    /**
+     * @return statistics of all active timers, only valid when called from the thread calling process()
+     */
+    public List<TimerStats> getTimerStats() {
+        List<TimerStats> stats = new ArrayList<>(activeTimers.size());
+        activeTimers.forEachValue(instance -> stats.add(instance.snapshot(instance.uniqueId)));
+        return stats;
+    }
+
+    /**
+     * @return how long timers started after their scheduled time, over all firings
+     */
+    public HistogramSnapshot getLagHistogram() {
+        return lagHistogram.snapshot();
+    }
+
+    /**
+     * @return how long timer runnables took, over all firings
+     */
+    public HistogramSnapshot getRuntimeHistogram() {
+        return runtimeHistogram.snapshot();
+    }
+
+    /**
+     * @return number of recurring timer firings which finished after the next firing was already due
+     */
+    public long getOverrunCount() {
+        return overruns.sum();
     }
 
-    boolean isTimerActive(long uniqueId) {
-        synchronized (lock) {
-            return activeTimers.containsKey(uniqueId);
+    public void resetStats() {
+        lagHistogram.reset();
+        runtimeHistogram.reset();
+        overruns.reset();
+    }
+
+    public boolean isStatsEnabled() {
+        return statsEnabled;
+    }
+
+    /**
+     * @param statsEnabled whether firings are timed, which costs two clock reads per firing
+     */
+    public void setStatsEnabled(boolean statsEnabled) {
+        this.statsEnabled = statsEnabled;
+    }
+
+    /**
+     * @param finished System.nanoTime() at the end of the run, 0 if it was not taken
+     */
+    private long nextExecution(TimerRunInstance instance, long now, long finished) {
+        long period = instance.waitTime;
+
+        if (!instance.fixedRate) {
+            // Reuse the clock reading taken for the statistics, only read it again when they are disabled.
+            long end = finished != 0 ? finished : System.nanoTime();
+            return (end - clockOrigin) / 1000000L + period;
+        }
+
+        long scheduled = instance.executionStart;
+
+        if (instance.catchUpPolicy == CatchUpPolicy.RUN_ALL || scheduled + period > now) {
+            return scheduled + period;
+        } else if (instance.catchUpPolicy == CatchUpPolicy.COALESCE) {
+            return now + period;
+        } else {
+            return scheduled + ((now - scheduled) / period + 1) * period;
         }
     }
 
-    void cancelTimer(long uniqueId) {
-        synchronized (lock) {
-            TimerRunInstance instance = activeTimers.remove(uniqueId);
-            if (instance != null) {
-                timerQueue.remove(instance);
+    boolean isTimerActive(TimerRunInstance instance, long uniqueId) {
+        long stamp = instance.stamp;
+        return stamp == TimerRunInstance.stamp(uniqueId, TimerRunInstance.PENDING)
+                || stamp == TimerRunInstance.stamp(uniqueId, TimerRunInstance.SCHEDULED);
+    }
+
+    void cancelTimer(TimerRunInstance instance, long uniqueId) {
+        if (instance.compareAndSetState(uniqueId, TimerRunInstance.PENDING, TimerRunInstance.CANCELLED)
+                || instance.compareAndSetState(uniqueId, TimerRunInstance.SCHEDULED, TimerRunInstance.CANCELLED)) {
+            if (isFrameThread()) {
+                unschedule(instance);
+            } else {
+                submissions.offer(instance);
             }
         }
     }
 
     protected static class TimerRunInstance implements Comparable<TimerRunInstance> {
 
-        public final long uniqueId;
-        public final long executionStart;
-        public final boolean isRecurring;
-        public final long waitTime;
-        public final Runnable runnable;
+        static final int PENDING = 0;
+        static final int SCHEDULED = 1;
+        static final int CANCELLED = 2;
+        static final int DONE = 3;
+
+        private static final AtomicLongFieldUpdater<TimerRunInstance> STAMP =
+                AtomicLongFieldUpdater.newUpdater(TimerRunInstance.class, "stamp");
+
+        public long uniqueId;
+        public long executionStart;
+        public boolean isRecurring;
+        public long waitTime;
+        public boolean fixedRate;
+        public CatchUpPolicy catchUpPolicy;
+        public Runnable runnable;
+        /**
+         * Id of the timer currently using this instance in the upper bits and its state in the lowest two, so that
+         * handles of a recycled timer cannot change the state of the timer reusing the instance.
+         */
+        volatile long stamp;
+        TimerRunInstance previous;
+        TimerRunInstance next;
+        int bucket = -1;
+        long alignment = -1;
+        TimerGroup group;
+        int groupIndex = -1;
+        String name;
+        Object owner;
+        TimerRunInstance ownerPrevious;
+        TimerRunInstance ownerNext;
+        long firings;
+        long overruns;
+        long totalLag;
+        long maxLag;
+        long lastLag;
+        long totalRuntime;
+        long maxRuntime;
+        long lastRuntime;
 
-        private TimerRunInstance(long uniqueId, long executionStart, boolean isRecurring, long waitTime, Runnable runnable) {
+        private TimerRunInstance(long uniqueId, long executionStart, long period, boolean fixedRate,
+                                 CatchUpPolicy catchUpPolicy, Runnable runnable) {
+            reset(uniqueId, executionStart, period, fixedRate, catchUpPolicy, runnable);
+        }
+
+        private void reset(long uniqueId, long executionStart, long period, boolean fixedRate,
+                           CatchUpPolicy catchUpPolicy, Runnable runnable) {
             this.uniqueId = uniqueId;
             this.executionStart = executionStart;
-            this.isRecurring = isRecurring;
-            this.waitTime = waitTime;
+            this.isRecurring = period > 0;
+            this.waitTime = period;
+            this.fixedRate = fixedRate;
+            this.catchUpPolicy = catchUpPolicy;
             this.runnable = runnable;
+            this.alignment = -1;
+            this.name = null;
+            this.owner = null;
+            this.firings = 0;
+            this.overruns = 0;
+            this.totalLag = 0;
+            this.maxLag = 0;
+            this.lastLag = 0;
+            this.totalRuntime = 0;
+            this.maxRuntime = 0;
+            this.lastRuntime = 0;
+            this.stamp = stamp(uniqueId, PENDING);
+        }
+
+        void recordFiring(long lag, long runtime, boolean overrun) {
+            firings++;
+            totalLag += lag;
+            maxLag = Math.max(maxLag, lag);
+            lastLag = lag;
+            totalRuntime += runtime;
+            maxRuntime = Math.max(maxRuntime, runtime);
+            lastRuntime = runtime;
+
+            if (overrun) {
+                overruns++;
+            }
+        }
+
+        /**
+         * @return statistics if the instance still belongs to the given timer, otherwise null. Fields are read
+         *         without locking, so a snapshot taken off the frame thread may mix two consecutive firings.
+         */
+        TimerStats snapshot(long uniqueId) {
+            if (!isUsedBy(uniqueId)) {
+                return null;
+            }
+
+            TimerStats stats = new TimerStats(uniqueId, name, firings, overruns, totalLag, maxLag, lastLag,
+                    totalRuntime, maxRuntime, lastRuntime);
+
+            return isUsedBy(uniqueId) ? stats : null;
+        }
+
+        boolean isUsedBy(long uniqueId) {
+            return stamp >>> 2 == uniqueId;
+        }
+
+        static long stamp(long uniqueId, int state) {
+            return uniqueId << 2 | state;
+        }
+
+        int state() {
+            return (int) stamp & 3;
+        }
+
+        boolean compareAndSetState(int expected, int state) {
+            return compareAndSetState(uniqueId, expected, state);
+        }
+
+        boolean compareAndSetState(long uniqueId, int expected, int state) {
+            return STAMP.compareAndSet(this, stamp(uniqueId, expected), stamp(uniqueId, state));
         }
 
         @Override
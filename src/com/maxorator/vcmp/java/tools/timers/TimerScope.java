@@ -0,0 +1,65 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+import java.util.function.Consumer;
+
+/**
+ * Registers timers on behalf of an owner, such as a player or an event handler, so that all of them can be cancelled
+ * together with {@link #cancelAll()} when the owner goes away. Obtained from {@link TimerRegistry#scope(Object)}.
+ * DelegatingEventHandler cancels the timers of a scope owned by a Player when that player disconnects.
+ */
+public class TimerScope {
+
+    private final TimerRegistry registry;
+    private final Object owner;
+
+    TimerScope(TimerRegistry registry, Object owner) {
+        this.registry = registry;
+        this.owner = owner;
+    }
+
+    public Object getOwner() {
+        return owner;
+    }
+
+    /**
+     * @see TimerRegistry#register(boolean, long, Runnable)
+     */
+    public TimerHandle register(boolean isRecurring, long waitTime, Runnable runnable) {
+        return registry.register(owner, waitTime, isRecurring ? Math.max(waitTime, 1) : 0, false, null, runnable);
+    }
+
+    /**
+     * @see TimerRegistry#registerFixedDelay(long, long, Runnable)
+     */
+    public TimerHandle registerFixedDelay(long initialDelay, long delay, Runnable runnable) {
+        return registry.register(owner, initialDelay, Math.max(delay, 1), false, null, runnable);
+    }
+
+    /**
+     * @see TimerRegistry#registerFixedRate(long, long, CatchUpPolicy, Runnable)
+     */
+    public TimerHandle registerFixedRate(long initialDelay, long period, CatchUpPolicy policy, Runnable runnable) {
+        return registry.register(owner, initialDelay, Math.max(period, 1), true, policy, runnable);
+    }
+
+    /**
+     * @see TimerRegistry#registerAligned(long, long, Runnable)
+     */
+    public TimerHandle registerAligned(long interval, long alignment, Runnable runnable) {
+        return registry.registerAligned(owner, interval, alignment, runnable);
+    }
+
+    /**
+     * @see TimerRegistry#registerAsync(boolean, long, Object, Runnable, Consumer)
+     */
+    public TimerHandle registerAsync(boolean isRecurring, long waitTime, Object key, Runnable runnable, Consumer<Throwable> completion) {
+        return register(isRecurring, waitTime, new AsyncTimerTask(registry, key, runnable, completion));
+    }
+
+    /**
+     * Cancels every timer registered through a scope of this owner.
+     */
+    public void cancelAll() {
+        registry.cancelAll(owner);
+    }
+}
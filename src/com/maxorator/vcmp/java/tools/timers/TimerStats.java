@@ -0,0 +1,48 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+/**
+ * Point in time copy of the statistics of one timer. Durations are in nanoseconds, lag being how long after its
+ * scheduled time a firing actually started.
+ */
+public class TimerStats {
+
+    public final long uniqueId;
+    public final String name;
+    public final long firings;
+    public final long overruns;
+    public final long totalLag;
+    public final long maxLag;
+    public final long lastLag;
+    public final long totalRuntime;
+    public final long maxRuntime;
+    public final long lastRuntime;
+
+    TimerStats(long uniqueId, String name, long firings, long overruns, long totalLag, long maxLag, long lastLag,
+               long totalRuntime, long maxRuntime, long lastRuntime) {
+        this.uniqueId = uniqueId;
+        this.name = name;
+        this.firings = firings;
+        this.overruns = overruns;
+        this.totalLag = totalLag;
+        this.maxLag = maxLag;
+        this.lastLag = lastLag;
+        this.totalRuntime = totalRuntime;
+        this.maxRuntime = maxRuntime;
+        this.lastRuntime = lastRuntime;
+    }
+
+    public long getMeanLag() {
+        return firings == 0 ? 0 : totalLag / firings;
+    }
+
+    public long getMeanRuntime() {
+        return firings == 0 ? 0 : totalRuntime / firings;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("timer %s: firings=%d overruns=%d lag[mean=%.3fms max=%.3fms] runtime[mean=%.3fms max=%.3fms]",
+                name != null ? name : "#" + uniqueId, firings, overruns, getMeanLag() / 1e6, maxLag / 1e6,
+                getMeanRuntime() / 1e6, maxRuntime / 1e6);
+    }
+}
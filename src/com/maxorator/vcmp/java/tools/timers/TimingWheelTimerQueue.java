@@ -0,0 +1,226 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+import com.maxorator.vcmp.java.tools.timers.TimerRegistry.TimerRunInstance;
+
+/**
+ * Hierarchical timing wheel with one millisecond ticks. Each level has 64 slots, a slot on level n covering 64^n
+ * ticks, so six levels reach about two years ahead and timers further out are parked in the last slot of the top
+ * level until it comes around. Slots are intrusive doubly linked lists, which makes scheduling and cancelling O(1),
+ * and a bitmap of occupied slots per level lets the wheel skip over empty ticks.
+ */
+public class TimingWheelTimerQueue implements TimerQueue {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+    private static final int READY = LEVELS * SLOTS;
+
+    private final TimerRunInstance[] heads = new TimerRunInstance[READY + 1];
+    private final TimerRunInstance[] tails = new TimerRunInstance[READY + 1];
+    private final long[] occupied = new long[LEVELS];
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param now current time in milliseconds, the first tick the wheel processes
+     */
+    public TimingWheelTimerQueue(long now) {
+        this.currentTick = now;
+    }
+
+    @Override
+    public void add(TimerRunInstance instance) {
+        schedule(instance);
+        size++;
+    }
+
+    @Override
+    public boolean remove(TimerRunInstance instance) {
+        if (instance.bucket < 0) {
+            return false;
+        }
+
+        unlink(instance);
+        size--;
+        return true;
+    }
+
+    @Override
+    public TimerRunInstance poll(long now) {
+        if (heads[READY] == null) {
+            advance(now);
+        }
+
+        TimerRunInstance instance = heads[READY];
+
+        if (instance != null) {
+            unlink(instance);
+            size--;
+        }
+
+        return instance;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void schedule(TimerRunInstance instance) {
+        long delta = instance.executionStart - currentTick;
+
+        if (delta < 0) {
+            append(READY, instance);
+            return;
+        }
+
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = level * SLOT_BITS;
+
+            if (delta < 1L << (shift + SLOT_BITS)) {
+                append(level * SLOTS + (int) ((instance.executionStart >> shift) & SLOT_MASK), instance);
+                return;
+            }
+        }
+
+        int shift = (LEVELS - 1) * SLOT_BITS;
+        append((LEVELS - 1) * SLOTS + (int) (((currentTick >> shift) + SLOT_MASK) & SLOT_MASK), instance);
+    }
+
+    private void advance(long now) {
+        while (currentTick <= now) {
+            long next = nextEventTick();
+
+            if (next > now) {
+                currentTick = now + 1;
+                return;
+            }
+
+            currentTick = next;
+
+            for (int level = LEVELS - 1; level > 0; level--) {
+                int shift = level * SLOT_BITS;
+
+                if ((currentTick & ((1L << shift) - 1)) == 0) {
+                    cascade(level * SLOTS + (int) ((currentTick >> shift) & SLOT_MASK));
+                }
+            }
+
+            expire((int) (currentTick & SLOT_MASK));
+            currentTick++;
+        }
+    }
+
+    /**
+     * @return earliest tick at or after the current one at which a level 0 slot expires or a higher slot cascades
+     */
+    private long nextEventTick() {
+        long best = Long.MAX_VALUE;
+
+        for (int level = 0; level < LEVELS; level++) {
+            long bits = occupied[level];
+
+            if (bits == 0) {
+                continue;
+            }
+
+            int shift = level * SLOT_BITS;
+            long position = currentTick >> shift;
+            int index = (int) (position & SLOT_MASK);
+            boolean includeCurrent = level == 0 || (currentTick & ((1L << shift) - 1)) == 0;
+            long ahead = includeCurrent ? bits & (-1L << index) : index == SLOT_MASK ? 0 : bits & (-1L << (index + 1));
+            long tick;
+
+            if (ahead != 0) {
+                tick = (position - index + Long.numberOfTrailingZeros(ahead)) << shift;
+            } else {
+                tick = (position - index + SLOTS + Long.numberOfTrailingZeros(bits)) << shift;
+            }
+
+            best = Math.min(best, tick);
+        }
+
+        return best;
+    }
+
+    private void cascade(int bucket) {
+        TimerRunInstance instance = detach(bucket);
+
+        while (instance != null) {
+            TimerRunInstance next = instance.next;
+            instance.previous = null;
+            instance.next = null;
+            instance.bucket = -1;
+            schedule(instance);
+            instance = next;
+        }
+    }
+
+    private void expire(int bucket) {
+        TimerRunInstance instance = detach(bucket);
+
+        while (instance != null) {
+            TimerRunInstance next = instance.next;
+            instance.previous = null;
+            instance.next = null;
+            instance.bucket = -1;
+            append(READY, instance);
+            instance = next;
+        }
+    }
+
+    private TimerRunInstance detach(int bucket) {
+        TimerRunInstance head = heads[bucket];
+
+        heads[bucket] = null;
+        tails[bucket] = null;
+        occupied[bucket / SLOTS] &= ~(1L << (bucket & SLOT_MASK));
+
+        return head;
+    }
+
+    private void append(int bucket, TimerRunInstance instance) {
+        TimerRunInstance tail = tails[bucket];
+
+        instance.bucket = bucket;
+        instance.previous = tail;
+        instance.next = null;
+
+        if (tail != null) {
+            tail.next = instance;
+        } else {
+            heads[bucket] = instance;
+        }
+
+        tails[bucket] = instance;
+
+        if (bucket != READY) {
+            occupied[bucket / SLOTS] |= 1L << (bucket & SLOT_MASK);
+        }
+    }
+
+    private void unlink(TimerRunInstance instance) {
+        int bucket = instance.bucket;
+
+        if (instance.previous != null) {
+            instance.previous.next = instance.next;
+        } else {
+            heads[bucket] = instance.next;
+        }
+
+        if (instance.next != null) {
+            instance.next.previous = instance.previous;
+        } else {
+            tails[bucket] = instance.previous;
+        }
+
+        if (heads[bucket] == null && bucket != READY) {
+            occupied[bucket / SLOTS] &= ~(1L << (bucket & SLOT_MASK));
+        }
+
+        instance.previous = null;
+        instance.next = null;
+        instance.bucket = -1;
+    }
+}
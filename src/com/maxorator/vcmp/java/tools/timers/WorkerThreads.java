@@ -0,0 +1,64 @@
+package com.maxorator.vcmp.java.tools.timers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors for work moved off the server thread. Uses virtual threads when the runtime provides them and
+ * falls back to a fixed pool of daemon threads otherwise.
+ */
+public final class WorkerThreads {
+
+    private WorkerThreads() {
+    }
+
+    public static boolean isVirtualThreadsAvailable() {
+        return createVirtualThreadFactory("probe") != null;
+    }
+
+    /**
+     * @param name prefix for the names of the worker threads
+     * @param parallelism number of threads when virtual threads are not available
+     */
+    public static ExecutorService newExecutor(String name, int parallelism) {
+        ThreadFactory virtualThreads = createVirtualThreadFactory(name);
+
+        if (virtualThreads != null) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, virtualThreads);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Fall through to platform threads.
+            }
+        }
+
+        return Executors.newFixedThreadPool(parallelism, createPlatformThreadFactory(name));
+    }
+
+    public static ThreadFactory newThreadFactory(String name) {
+        ThreadFactory virtualThreads = createVirtualThreadFactory(name);
+        return virtualThreads != null ? virtualThreads : createPlatformThreadFactory(name);
+    }
+
+    private static ThreadFactory createVirtualThreadFactory(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory createPlatformThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}